@@ -0,0 +1,28 @@
+#!/usr/bin/env bash
+# Builds the AOT-processed jar and a CDS archive from a training run.
+# The training run refreshes the context and exits, so it needs the database to be reachable.
+# Extra arguments are passed to the training JVM, e.g. -Dspring.datasource.url=... for another database:
+#
+#   scripts/build-cds-archive.sh [jvm options]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+JAR=payflow-0.0.1-SNAPSHOT.jar
+OUT=target/fast-start
+
+./mvnw -B -Pfast-start -DskipTests package
+
+rm -rf "$OUT"
+java -Djarmode=tools -jar "target/$JAR" extract --destination "$OUT"
+
+# CDS only accepts the archive when the launch classpath matches this one, so train with the same jar path
+java -XX:ArchiveClassesAtExit="$OUT/payflow.jsa" \
+     -Dspring.context.exit=onRefresh \
+     -Dspring.aot.enabled=true \
+     -Dspring.profiles.active=fast-start \
+     "$@" \
+     -jar "$OUT/$JAR"
+
+echo "Start with:"
+echo "  java -XX:SharedArchiveFile=$OUT/payflow.jsa -Dspring.aot.enabled=true -Dspring.profiles.active=fast-start -jar $OUT/$JAR"
@@ -0,0 +1,22 @@
+#!/usr/bin/env bash
+# Compares payload size and server response time for JSON, CBOR and Smile end to end.
+# For the mapper cost alone (bytes and ns/op, no HTTP), run
+#   ./mvnw test -Dtest=SerializationBenchmarkTest
+# This one needs a running app and an existing payment:
+#
+#   scripts/serialization-benchmark.sh <transactionId> [requests]
+set -euo pipefail
+
+TXN=${1:?usage: $0 <transactionId> [requests]}
+N=${2:-1000}
+BASE=${BASE:-http://localhost:8080}
+
+for type in application/json application/cbor application/x-jackson-smile; do
+    curl -s -o /dev/null -H "Accept: $type" "$BASE/api/v1/payments/$TXN"   # warm up
+    for ((i = 0; i < N; i++)); do
+        curl -s -o /dev/null -H "Accept: $type" -w '%{size_download} %{time_starttransfer}\n' \
+            "$BASE/api/v1/payments/$TXN"
+    done | awk -v type="$type" '
+        { bytes = $1; t += $2 }
+        END { printf "%-28s %6d bytes/response  %8.3f ms avg time-to-first-byte\n", type, bytes, t / NR * 1000 }'
+done
@@ -0,0 +1,30 @@
+#!/usr/bin/env bash
+# Reports time-to-first-request: launches the jar with the given JVM options and polls
+# until the first successful response.
+#
+#   scripts/startup-benchmark.sh                                  # plain jar
+#   JAR=target/fast-start/payflow-0.0.1-SNAPSHOT.jar scripts/startup-benchmark.sh -XX:SharedArchiveFile=target/fast-start/payflow.jsa \
+#       -Dspring.aot.enabled=true -Dspring.profiles.active=fast-start
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+JAR=${JAR:-target/payflow-0.0.1-SNAPSHOT.jar}
+URL=${URL:-http://localhost:8080/api/v1/merchants}
+
+start=$(date +%s%N)
+java "$@" -jar "$JAR" > target/startup-benchmark.log 2>&1 &
+pid=$!
+trap 'kill $pid 2>/dev/null || true' EXIT
+
+until curl -sf -o /dev/null "$URL"; do
+    if ! kill -0 $pid 2>/dev/null; then
+        echo "Application exited, see target/startup-benchmark.log" >&2
+        exit 1
+    fi
+    sleep 0.05
+done
+end=$(date +%s%N)
+
+echo "Time to first request: $(( (end - start) / 1000000 )) ms"
+grep "Startup:" target/startup-benchmark.log || true
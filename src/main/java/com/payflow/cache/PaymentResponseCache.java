@@ -0,0 +1,135 @@
+package com.payflow.cache;
+
+import com.payflow.dto.PaymentResponse;
+import com.payflow.statemachine.PaymentStateMachineConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of {@link PaymentResponse} keyed by transaction ID.
+ * Payments in a terminal state never change again, so they are kept much longer
+ * than payments that can still move through the state machine.
+ *
+ * <p>Reads never lock. Once the cache is over {@code max-size}, each put samples a few entries
+ * and drops the one closest to expiry, so active payments go before terminal ones.
+ */
+@Slf4j
+@Component
+public class PaymentResponseCache {
+
+    private static final int EVICTION_SAMPLE_SIZE = 8;
+    private static final int VERSION_STRIPES = 64;
+
+    private final int maxSize;
+    private final long activeTtlNanos;
+    private final long terminalTtlNanos;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Bumped on every eviction of a key in the stripe; a load that saw an older value is not cached
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    public PaymentResponseCache(
+            @Value("${payflow.cache.payments.max-size:10000}") int maxSize,
+            @Value("${payflow.cache.payments.active-ttl:5s}") Duration activeTtl,
+            @Value("${payflow.cache.payments.terminal-ttl:1h}") Duration terminalTtl) {
+        this.maxSize = maxSize;
+        this.activeTtlNanos = activeTtl.toNanos();
+        this.terminalTtlNanos = terminalTtl.toNanos();
+    }
+
+    /**
+     * Returns the cached response, or calls {@code loader} and caches its result. The result is
+     * only cached if the payment was not evicted while it was loading, so a read that raced a
+     * write cannot leave the pre-commit row behind.
+     */
+    public PaymentResponse get(String transactionId, Supplier<PaymentResponse> loader) {
+        Entry entry = entries.get(transactionId);
+        if (entry != null) {
+            if (System.nanoTime() - entry.expiresAt() <= 0) {
+                return entry.response();
+            }
+            entries.remove(transactionId, entry);
+        }
+
+        int stripe = stripe(transactionId);
+        long version = versions.get(stripe);
+        PaymentResponse response = loader.get();
+        put(response, stripe, version);
+        return response;
+    }
+
+    public void evict(String transactionId) {
+        // Bump first: a put that checks the version after this sees the change, one that checked
+        // before has already inserted and is removed below
+        versions.incrementAndGet(stripe(transactionId));
+        entries.remove(transactionId);
+    }
+
+    /**
+     * Evicts now and again once the surrounding transaction completes. Loads that start before
+     * the second eviction do not cache what they read, so the cache never serves the old row
+     * after the commit.
+     */
+    public void evictAfterCommit(String transactionId) {
+        evict(transactionId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(transactionId);
+                }
+            });
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void put(PaymentResponse response, int stripe, long version) {
+        if (versions.get(stripe) != version) {
+            return;
+        }
+        long ttl = PaymentStateMachineConfig.isTerminal(response.getStatus()) ? terminalTtlNanos : activeTtlNanos;
+        Entry entry = new Entry(response, System.nanoTime() + ttl);
+        entries.put(response.getTransactionId(), entry);
+        if (versions.get(stripe) != version) {
+            entries.remove(response.getTransactionId(), entry);
+            return;
+        }
+        while (entries.size() > maxSize) {
+            evictSample();
+        }
+    }
+
+    private void evictSample() {
+        long now = System.nanoTime();
+        Map.Entry<String, Entry> victim = null;
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        for (int i = 0; i < EVICTION_SAMPLE_SIZE && iterator.hasNext(); i++) {
+            Map.Entry<String, Entry> candidate = iterator.next();
+            if (now - candidate.getValue().expiresAt() > 0) {
+                entries.remove(candidate.getKey(), candidate.getValue());
+            } else if (victim == null || candidate.getValue().expiresAt() - victim.getValue().expiresAt() < 0) {
+                victim = candidate;
+            }
+        }
+        if (victim != null) {
+            entries.remove(victim.getKey(), victim.getValue());
+        }
+    }
+
+    private static int stripe(String transactionId) {
+        return Math.floorMod(transactionId.hashCode(), VERSION_STRIPES);
+    }
+
+    private record Entry(PaymentResponse response, long expiresAt) {}
+}
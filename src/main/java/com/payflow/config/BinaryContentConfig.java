@@ -0,0 +1,28 @@
+package com.payflow.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.http.converter.smile.JacksonSmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers compact binary formats next to JSON. Clients pick one with the
+ * {@code Accept} and {@code Content-Type} headers; JSON stays the default.
+ *
+ * <p>The converters go into the builder's CBOR and Smile slots, which come after JSON. Declared
+ * as {@code HttpMessageConverter} beans they would be registered as custom converters ahead of
+ * JSON, and every response without a narrowed {@code produces} (error bodies, SSE events)
+ * would answer {@code Accept: *&#47;*} in CBOR.
+ */
+@Configuration
+public class BinaryContentConfig implements WebMvcConfigurer {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    @Override
+    public void configureMessageConverters(HttpMessageConverters.ServerBuilder builder) {
+        builder.withCborConverter(new JacksonCborHttpMessageConverter())
+                .withSmileConverter(new JacksonSmileHttpMessageConverter());
+    }
+}
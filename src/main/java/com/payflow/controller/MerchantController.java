@@ -1,5 +1,6 @@
 package com.payflow.controller;
 
+import com.payflow.config.BinaryContentConfig;
 import com.payflow.dto.MerchantRequest;
 import com.payflow.dto.MerchantResponse;
 import com.payflow.service.MerchantService;
@@ -7,13 +8,18 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
 @Slf4j
 @RestController
-@RequestMapping("/api/v1/merchants")
+@RequestMapping(value = "/api/v1/merchants", produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        BinaryContentConfig.APPLICATION_SMILE_VALUE
+})
 @RequiredArgsConstructor
 public class MerchantController {
 
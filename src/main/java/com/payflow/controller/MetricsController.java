@@ -0,0 +1,25 @@
+package com.payflow.controller;
+
+import com.payflow.metrics.MetricsBroadcaster;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final MetricsBroadcaster metricsBroadcaster;
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMetrics() {
+        log.info("GET /api/v1/metrics/stream - Subscribing to metrics stream");
+        return metricsBroadcaster.subscribe();
+    }
+}
@@ -1,5 +1,8 @@
 package com.payflow.controller;
 
+import com.payflow.config.BinaryContentConfig;
+import com.payflow.dto.BatchRefundRequest;
+import com.payflow.dto.BatchRefundResponse;
 import com.payflow.dto.PaymentRequest;
 import com.payflow.dto.PaymentResponse;
 import com.payflow.dto.RefundRequest;
@@ -7,22 +10,29 @@ import com.payflow.entity.Merchant;
 import com.payflow.service.MerchantService;
 import com.payflow.service.PaymentService;
 import com.payflow.statemachine.PaymentState;
+import com.payflow.velocity.VelocityChecker;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
 @Slf4j
 @RestController
-@RequestMapping("/api/v1/payments")
+@RequestMapping(value = "/api/v1/payments", produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        BinaryContentConfig.APPLICATION_SMILE_VALUE
+})
 @RequiredArgsConstructor
 public class PaymentController {
 
     private final PaymentService paymentService;
     private final MerchantService merchantService;
+    private final VelocityChecker velocityChecker;
 
     @PostMapping
     public ResponseEntity<PaymentResponse> createPayment(
@@ -30,6 +40,8 @@ public class PaymentController {
             @Valid @RequestBody PaymentRequest request) {
         log.info("POST /api/v1/payments - Creating payment");
         Merchant merchant = merchantService.validateApiKey(apiKey);
+        // Reject bursts from the same card/cardholder before a transaction or connection is taken
+        velocityChecker.check(merchant, request);
         PaymentResponse response = paymentService.createPayment(merchant, request);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
@@ -48,6 +60,13 @@ public class PaymentController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/refunds/batch")
+    public ResponseEntity<BatchRefundResponse> refundPayments(@Valid @RequestBody BatchRefundRequest request) {
+        log.info("POST /api/v1/payments/refunds/batch - Refunding {} payments", request.getRefunds().size());
+        BatchRefundResponse response = paymentService.refundPayments(request.getRefunds());
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/{transactionId}")
     public ResponseEntity<PaymentResponse> getPayment(@PathVariable String transactionId) {
         log.info("GET /api/v1/payments/{} - Fetching payment", transactionId);
@@ -56,7 +75,7 @@ public class PaymentController {
     }
 
     @GetMapping("/merchant/{merchantId}")
-    public ResponseEntity<List<PaymentResponse>> getMerchantPayments(@PathVariable Long merchantId) {
+    public ResponseEntity<List<PaymentResponse>> getMerchantPayments(@PathVariable String merchantId) {
         log.info("GET /api/v1/payments/merchant/{} - Fetching merchant payments", merchantId);
         List<PaymentResponse> response = paymentService.getMerchantPayments(merchantId);
         return ResponseEntity.ok(response);
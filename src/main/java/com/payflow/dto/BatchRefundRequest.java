@@ -0,0 +1,28 @@
+package com.payflow.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Validation is all-or-nothing: if any item is malformed (null, missing transaction ID,
+ * non-positive amount) the whole batch is rejected with 400 before anything is refunded, and
+ * the error map is keyed by item, e.g. {@code refunds[3].transactionId}. Items that pass
+ * validation but fail business rules are reported per item in {@link BatchRefundResponse}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRefundRequest {
+
+    @NotEmpty(message = "At least one refund is required")
+    @Size(max = 10000, message = "A batch can contain at most 10000 refunds")
+    private List<@NotNull(message = "Refund must not be null") @Valid RefundRequest> refunds;
+}
@@ -0,0 +1,17 @@
+package com.payflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRefundResponse {
+    private int succeeded;
+    private int failed;
+    private List<RefundResult> results;  // Same order as the request
+}
@@ -0,0 +1,23 @@
+package com.payflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MerchantMetrics {
+    private String merchantId;
+    private double tps;             // Payments created per second over the window
+    private long created;
+    private long completed;
+    private long failed;
+    private long refunded;
+    private long expired;
+    private double successRatio;    // completed / (completed + failed)
+    private double failureRatio;    // failed / (completed + failed)
+    private double avgLatencyMs;    // PROCESSING -> COMPLETED/FAILED
+}
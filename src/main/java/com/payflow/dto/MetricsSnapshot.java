@@ -0,0 +1,18 @@
+package com.payflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricsSnapshot {
+    private LocalDateTime timestamp;
+    private int windowSeconds;
+    private List<MerchantMetrics> merchants;
+}
@@ -0,0 +1,33 @@
+package com.payflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefundResult {
+    private String transactionId;
+    private boolean success;
+    private PaymentResponse payment;  // Set on success
+    private String error;             // Set on failure
+
+    public static RefundResult success(String transactionId, PaymentResponse payment) {
+        return RefundResult.builder()
+                .transactionId(transactionId)
+                .success(true)
+                .payment(payment)
+                .build();
+    }
+
+    public static RefundResult failure(String transactionId, String error) {
+        return RefundResult.builder()
+                .transactionId(transactionId)
+                .success(false)
+                .error(error)
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.payflow.entity;
+
+import com.payflow.statemachine.PaymentState;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Terminal-state payment moved out of the hot {@code payments} table by the archiver.
+ * Keeps the original primary key so rows can be traced back.
+ */
+@Entity
+@Table(name = "payments_archive")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedPayment {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String transactionId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "merchant_id", nullable = false)
+    private Merchant merchant;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private String currency;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PaymentState status;
+
+    @Column(nullable = false)
+    private String cardNumber;  // Last 4 digits only
+
+    @Column(nullable = false)
+    private String cardHolderName;
+
+    private String description;
+
+    @Column(nullable = false)
+    private BigDecimal refundedAmount;
+
+    private String failureReason;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime processedAt;
+
+    private LocalDateTime completedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -10,7 +10,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_status_created_at", columnList = "status, created_at"),
+        @Index(name = "idx_payments_status_processed_at", columnList = "status, processed_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,114 @@
+package com.payflow.metrics;
+
+import com.payflow.dto.MerchantMetrics;
+import com.payflow.statemachine.PaymentState;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-merchant ring of one-second buckets. Writers only touch {@link LongAdder}s, so recording
+ * never blocks; a bucket is recycled with a CAS on its epoch second when the ring wraps around.
+ */
+class MerchantWindow {
+
+    private final Bucket[] buckets;
+    private volatile long lastActiveSecond;
+
+    MerchantWindow(int seconds) {
+        this.buckets = new Bucket[seconds];
+        for (int i = 0; i < seconds; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    void recordCreated(long second) {
+        bucket(second).created.increment();
+    }
+
+    void recordTransition(long second, PaymentState state, long latencyMillis) {
+        Bucket bucket = bucket(second);
+        switch (state) {
+            case COMPLETED -> bucket.completed.increment();
+            case FAILED -> bucket.failed.increment();
+            case REFUNDED, PARTIALLY_REFUNDED -> bucket.refunded.increment();
+            case EXPIRED -> bucket.expired.increment();
+            default -> {
+                return;
+            }
+        }
+        if (latencyMillis >= 0) {
+            bucket.latencySum.add(latencyMillis);
+            bucket.latencyCount.increment();
+        }
+    }
+
+    boolean isIdleSince(long second) {
+        return lastActiveSecond < second;
+    }
+
+    /**
+     * Sums the {@code windowSeconds} complete seconds before {@code nowSecond}; the current,
+     * still-filling second is left out so the numbers don't sag at the start of each tick.
+     */
+    MerchantMetrics summarize(String merchantId, long nowSecond, int windowSeconds) {
+        long created = 0, completed = 0, failed = 0, refunded = 0, expired = 0, latencySum = 0, latencyCount = 0;
+        for (long second = nowSecond - windowSeconds; second < nowSecond; second++) {
+            Bucket bucket = buckets[(int) Math.floorMod(second, (long) buckets.length)];
+            if (bucket.second.get() != second) {
+                continue;
+            }
+            created += bucket.created.sum();
+            completed += bucket.completed.sum();
+            failed += bucket.failed.sum();
+            refunded += bucket.refunded.sum();
+            expired += bucket.expired.sum();
+            latencySum += bucket.latencySum.sum();
+            latencyCount += bucket.latencyCount.sum();
+        }
+
+        long outcomes = completed + failed;
+        return MerchantMetrics.builder()
+                .merchantId(merchantId)
+                .tps((double) created / windowSeconds)
+                .created(created)
+                .completed(completed)
+                .failed(failed)
+                .refunded(refunded)
+                .expired(expired)
+                .successRatio(outcomes == 0 ? 0 : (double) completed / outcomes)
+                .failureRatio(outcomes == 0 ? 0 : (double) failed / outcomes)
+                .avgLatencyMs(latencyCount == 0 ? 0 : (double) latencySum / latencyCount)
+                .build();
+    }
+
+    private Bucket bucket(long second) {
+        lastActiveSecond = second;
+        Bucket bucket = buckets[(int) Math.floorMod(second, (long) buckets.length)];
+        long current = bucket.second.get();
+        if (current != second && bucket.second.compareAndSet(current, second)) {
+            bucket.reset();
+        }
+        return bucket;
+    }
+
+    private static final class Bucket {
+        private final AtomicLong second = new AtomicLong(-1);
+        private final LongAdder created = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder refunded = new LongAdder();
+        private final LongAdder expired = new LongAdder();
+        private final LongAdder latencySum = new LongAdder();
+        private final LongAdder latencyCount = new LongAdder();
+
+        void reset() {
+            created.reset();
+            completed.reset();
+            failed.reset();
+            refunded.reset();
+            expired.reset();
+            latencySum.reset();
+            latencyCount.reset();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.payflow.metrics;
+
+import com.payflow.dto.MetricsSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes one shared {@link MetricsSnapshot} per tick to every connected dashboard. The snapshot
+ * is built and serialized once per tick, so that cost does not grow with the number of viewers.
+ *
+ * <p>Ticks run on their own thread rather than the shared {@code @Scheduled} pool, and each client
+ * is written from a small sender pool with at most one write in flight per client. A client whose
+ * socket is slow skips ticks until its previous write completes instead of delaying the others.
+ */
+@Slf4j
+@Component
+public class MetricsBroadcaster {
+
+    private final PaymentMetrics paymentMetrics;
+    private final JsonMapper jsonMapper;
+    private final int windowSeconds;
+    private final Duration streamTimeout;
+    private final Duration tick;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(daemonThreads("metrics-broadcaster"));
+    private final ThreadPoolExecutor senders;
+
+    public MetricsBroadcaster(PaymentMetrics paymentMetrics,
+                              JsonMapper jsonMapper,
+                              @Value("${payflow.metrics.window-seconds:10}") int windowSeconds,
+                              @Value("${payflow.metrics.stream-timeout:30m}") Duration streamTimeout,
+                              @Value("${payflow.metrics.tick:1s}") Duration tick,
+                              @Value("${payflow.metrics.sender-threads:8}") int senderThreads) {
+        this.paymentMetrics = paymentMetrics;
+        this.jsonMapper = jsonMapper;
+        this.windowSeconds = windowSeconds;
+        this.streamTimeout = streamTimeout;
+        this.tick = tick;
+        // No queue: when every sender is stuck on a slow client, the remaining clients skip this tick
+        this.senders = new ThreadPoolExecutor(0, senderThreads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), daemonThreads("metrics-sender"));
+    }
+
+    @PostConstruct
+    void start() {
+        ticker.scheduleAtFixedRate(this::tickSafely, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        ticker.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        register(emitter);
+        return emitter;
+    }
+
+    void register(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, new AtomicBoolean());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        log.debug("Metrics stream subscribed ({} clients)", subscribers.size());
+    }
+
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            // An exception would cancel the periodic task for good
+            log.warn("Metrics tick failed", e);
+        }
+    }
+
+    void tick() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        // Explicit JSON: an untyped event uses the first capable converter, which need not be JSON
+        String json = jsonMapper.writeValueAsString(paymentMetrics.snapshot(windowSeconds));
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.sending().compareAndSet(false, true)) {
+                continue;  // Previous tick still being written to this client
+            }
+            try {
+                senders.execute(() -> send(subscriber, json));
+            } catch (RejectedExecutionException e) {
+                subscriber.sending().set(false);
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber, String json) {
+        try {
+            subscriber.emitter().send(SseEmitter.event().name("metrics").data(json, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the completion callback may not fire for a broken connection
+            subscribers.remove(subscriber);
+        } finally {
+            subscriber.sending().set(false);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger threadId = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Subscriber(SseEmitter emitter, AtomicBoolean sending) {}
+}
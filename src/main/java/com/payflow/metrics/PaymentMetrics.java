@@ -0,0 +1,141 @@
+package com.payflow.metrics;
+
+import com.payflow.dto.MerchantMetrics;
+import com.payflow.dto.MetricsSnapshot;
+import com.payflow.entity.Merchant;
+import com.payflow.entity.Payment;
+import com.payflow.repository.MerchantRepository;
+import com.payflow.sharding.ShardContext;
+import com.payflow.sharding.ShardRouter;
+import com.payflow.statemachine.PaymentState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process, per-merchant throughput / outcome / latency counters fed by {@code PaymentService}.
+ * Transitions are counted once their transaction commits, so rolled-back work never shows up.
+ *
+ * <p>Counters are keyed by shard and the merchant's database ID, which a lazy {@code Payment.merchant}
+ * proxy knows without loading the merchant. Public merchant IDs are remembered when payments are
+ * created and looked up once, off the request path, for merchants only seen in transitions.
+ */
+@Component
+public class PaymentMetrics {
+
+    private final int ringSeconds;
+    private final MerchantRepository merchantRepository;
+    private final ShardRouter shardRouter;
+    private final Map<MerchantKey, MerchantWindow> windows = new ConcurrentHashMap<>();
+    private final Map<MerchantKey, String> publicIds = new ConcurrentHashMap<>();
+
+    public PaymentMetrics(@Value("${payflow.metrics.ring-seconds:60}") int ringSeconds,
+                          MerchantRepository merchantRepository,
+                          ShardRouter shardRouter) {
+        this.ringSeconds = ringSeconds;
+        this.merchantRepository = merchantRepository;
+        this.shardRouter = shardRouter;
+    }
+
+    public void recordCreated(Merchant merchant) {
+        MerchantKey key = MerchantKey.of(merchant);
+        afterCommit(() -> {
+            publicIds.putIfAbsent(key, merchant.getMerchantId());
+            window(key).recordCreated(currentSecond());
+        });
+    }
+
+    public void recordTransition(Payment payment) {
+        if (payment.getMerchant() == null) {
+            return;  // Not attached to a merchant, nothing to attribute it to
+        }
+        MerchantKey key = MerchantKey.of(payment.getMerchant());
+        PaymentState state = payment.getStatus();
+        long latencyMillis = payment.getProcessedAt() != null
+                && (state == PaymentState.COMPLETED || state == PaymentState.FAILED)
+                ? Duration.between(payment.getProcessedAt(), LocalDateTime.now()).toMillis()
+                : -1;
+        afterCommit(() -> window(key).recordTransition(currentSecond(), state, latencyMillis));
+    }
+
+    public MetricsSnapshot snapshot(int windowSeconds) {
+        int window = Math.min(windowSeconds, ringSeconds - 1);
+        long now = currentSecond();
+        List<MerchantMetrics> merchants = new ArrayList<>(windows.size());
+        windows.forEach((key, merchantWindow) -> merchants.add(merchantWindow.summarize(publicId(key), now, window)));
+        merchants.sort(Comparator.comparingDouble(MerchantMetrics::getTps).reversed());
+        return MetricsSnapshot.builder()
+                .timestamp(LocalDateTime.now())
+                .windowSeconds(window)
+                .merchants(merchants)
+                .build();
+    }
+
+    /**
+     * Drops merchants with no activity for a full ring so memory tracks active merchants only.
+     * Scheduled here rather than driven by the broadcaster: that only starts once a dashboard
+     * subscribes (it is lazy under {@code spring.main.lazy-initialization}), while payments are
+     * recorded from the first request.
+     */
+    @Scheduled(fixedDelayString = "${payflow.metrics.eviction-interval:30s}")
+    public void evictIdle() {
+        long cutoff = currentSecond() - ringSeconds;
+        windows.entrySet().removeIf(entry -> {
+            if (entry.getValue().isIdleSince(cutoff)) {
+                publicIds.remove(entry.getKey());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private MerchantWindow window(MerchantKey key) {
+        return windows.computeIfAbsent(key, k -> new MerchantWindow(ringSeconds));
+    }
+
+    private String publicId(MerchantKey key) {
+        String publicId = publicIds.get(key);
+        if (publicId == null) {
+            // Looked up outside computeIfAbsent so the query never holds a map bin lock
+            publicId = shardRouter.onShard(key.shard(), () -> merchantRepository.findById(key.id())
+                    .map(Merchant::getMerchantId)
+                    .orElse(key.shard() + ":" + key.id()));
+            publicIds.putIfAbsent(key, publicId);
+        }
+        return publicId;
+    }
+
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private record MerchantKey(int shard, long id) {
+        // getId() on an uninitialized Hibernate proxy returns the identifier without a SELECT
+        static MerchantKey of(Merchant merchant) {
+            Integer shard = ShardContext.current();
+            return new MerchantKey(shard != null ? shard : 0, merchant.getId());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package com.payflow.repository;
+
+import com.payflow.entity.ArchivedPayment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedPaymentRepository extends JpaRepository<ArchivedPayment, Long> {
+    Optional<ArchivedPayment> findByTransactionId(String transactionId);
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO payments_archive (id, transaction_id, merchant_id, amount, currency, status,
+                    card_number, card_holder_name, description, refunded_amount, failure_reason,
+                    created_at, processed_at, completed_at, archived_at)
+            SELECT id, transaction_id, merchant_id, amount, currency, status,
+                    card_number, card_holder_name, description, refunded_amount, failure_reason,
+                    created_at, processed_at, completed_at, CURRENT_TIMESTAMP
+            FROM payments
+            WHERE id IN (:ids)
+            """)
+    int copyFromPayments(@Param("ids") Collection<Long> ids);
+}
@@ -2,15 +2,63 @@ package com.payflow.repository;
 
 import com.payflow.entity.Payment;
 import com.payflow.statemachine.PaymentState;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByTransactionId(String transactionId);
-    List<Payment> findByMerchantId(Long merchantId);
+
+    // Row locks so processing, refunds and the sweeper never overwrite each other's state change
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Payment p where p.transactionId = :transactionId")
+    Optional<Payment> lockByTransactionId(@Param("transactionId") String transactionId);
+
+    // Ordered by id so concurrent batches take their locks in the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Payment p where p.transactionId in :transactionIds order by p.id")
+    List<Payment> lockByTransactionIdIn(@Param("transactionIds") Collection<String> transactionIds);
+
+    List<Payment> findByMerchant_MerchantId(String merchantId);
     List<Payment> findByStatus(PaymentState status);
     List<Payment> findByMerchantIdAndStatus(Long merchantId, PaymentState status);
-}
\ No newline at end of file
+
+    // Skips rows another node's archiver has claimed, so no row is copied twice (lock timeout -2, see below)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select p from Payment p where p.status in :statuses and p.createdAt < :cutoff order by p.id")
+    List<Payment> claimByStatusInAndCreatedAtBefore(@Param("statuses") Collection<PaymentState> statuses,
+                                                    @Param("cutoff") LocalDateTime cutoff,
+                                                    Pageable pageable);
+
+    // Lock timeout -2 is Hibernate's SKIP LOCKED: rows claimed by another sweeper are skipped, not waited on
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select p from Payment p where p.status = :status and p.createdAt < :cutoff order by p.createdAt")
+    List<Payment> claimByStatusAndCreatedAtBefore(@Param("status") PaymentState status,
+                                                  @Param("cutoff") LocalDateTime cutoff,
+                                                  Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select p from Payment p where p.status = :status and p.processedAt < :cutoff order by p.processedAt")
+    List<Payment> claimByStatusAndProcessedAtBefore(@Param("status") PaymentState status,
+                                                    @Param("cutoff") LocalDateTime cutoff,
+                                                    Pageable pageable);
+
+    @Modifying
+    @Query("delete from Payment p where p.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -5,12 +5,12 @@ import com.payflow.dto.MerchantResponse;
 import com.payflow.entity.Merchant;
 import com.payflow.exception.MerchantNotFoundException;
 import com.payflow.repository.MerchantRepository;
+import com.payflow.sharding.ShardRouter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -19,14 +19,17 @@ import java.util.stream.Collectors;
 public class MerchantService {
 
     private final MerchantRepository merchantRepository;
+    private final ShardRouter shardRouter;
 
     @Transactional
     public MerchantResponse createMerchant(MerchantRequest request) {
         log.info("Creating merchant: {}", request.getName());
 
-        // Generate unique merchant ID and API key
-        String merchantId = "MERCH_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        String apiKey = "sk_" + UUID.randomUUID().toString().replace("-", "");
+        // Pick the home shard and encode it into the merchant ID and API key
+        int shard = shardRouter.shardForKey(request.getEmail());
+        shardRouter.bindForTransaction(shard);
+        String merchantId = shardRouter.newId("MERCH_", shard, 8);
+        String apiKey = shardRouter.newId("sk_", shard, 32).toLowerCase();
 
         Merchant merchant = Merchant.builder()
                 .merchantId(merchantId)
@@ -44,20 +47,22 @@ public class MerchantService {
 
     @Transactional(readOnly = true)
     public MerchantResponse getMerchant(String merchantId) {
+        shardRouter.bindForTransaction(shardRouter.shardOf(merchantId));
         Merchant merchant = merchantRepository.findByMerchantId(merchantId)
                 .orElseThrow(() -> new MerchantNotFoundException("Merchant not found: " + merchantId));
         return mapToResponse(merchant);
     }
 
-    @Transactional(readOnly = true)
+    // Not @Transactional: fanOut opens its own read-only transaction on every shard
     public List<MerchantResponse> getAllMerchants() {
-        return merchantRepository.findAll().stream()
+        return shardRouter.fanOut(merchantRepository::findAll).stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
     public Merchant validateApiKey(String apiKey) {
+        shardRouter.bindForTransaction(shardRouter.shardOf(apiKey));
         return merchantRepository.findByApiKey(apiKey)
                 .orElseThrow(() -> new MerchantNotFoundException("Invalid API key"));
     }
@@ -0,0 +1,92 @@
+package com.payflow.service;
+
+import com.payflow.entity.Payment;
+import com.payflow.repository.ArchivedPaymentRepository;
+import com.payflow.repository.PaymentRepository;
+import com.payflow.sharding.ShardRouter;
+import com.payflow.statemachine.PaymentStateMachineConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves terminal-state payments older than {@code payflow.archive.min-age} from the hot
+ * {@code payments} table into {@code payments_archive}, one batch per transaction. Each batch
+ * claims its rows with {@code FOR UPDATE SKIP LOCKED}, so every app instance can run the archiver.
+ *
+ * <p>Archived payments are still returned by {@code GET /payments/{transactionId}}, but no longer
+ * appear in the per-merchant and per-status listings, which only read the hot table.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payflow.archive.enabled", havingValue = "true")
+public class PaymentArchiver {
+
+    private final PaymentRepository paymentRepository;
+    private final ArchivedPaymentRepository archivedPaymentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final Duration minAge;
+    private final int batchSize;
+
+    public PaymentArchiver(PaymentRepository paymentRepository,
+                           ArchivedPaymentRepository archivedPaymentRepository,
+                           PlatformTransactionManager transactionManager,
+                           ShardRouter shardRouter,
+                           @Value("${payflow.archive.min-age:30d}") Duration minAge,
+                           @Value("${payflow.archive.batch-size:500}") int batchSize) {
+        this.paymentRepository = paymentRepository;
+        this.archivedPaymentRepository = archivedPaymentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouter = shardRouter;
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${payflow.archive.interval:1h}", initialDelayString = "${payflow.archive.initial-delay:5m}")
+    public void archiveTerminalPayments() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(minAge);
+        shardRouter.onEachShard(shard -> {
+            int total = 0;
+            try {
+                int moved;
+                do {
+                    moved = archiveBatch(cutoff);
+                    total += moved;
+                } while (moved == batchSize);
+            } catch (RuntimeException e) {
+                // Committed batches stay archived; the next run retries the rest, and other shards still run
+                log.error("Archiving stopped on shard {} after {} payments", shard, total, e);
+            }
+
+            if (total > 0) {
+                log.info("Archived {} terminal payments created before {} on shard {}", total, cutoff, shard);
+            }
+        });
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        Integer moved = transactionTemplate.execute(status -> {
+            List<Long> ids = paymentRepository.claimByStatusInAndCreatedAtBefore(
+                    PaymentStateMachineConfig.TERMINAL_STATES, cutoff, PageRequest.of(0, batchSize)).stream()
+                    .map(Payment::getId)
+                    .toList();
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            archivedPaymentRepository.copyFromPayments(ids);
+            paymentRepository.deleteByIdIn(ids);
+            log.debug("Archived batch of {} payments", ids.size());
+            return ids.size();
+        });
+        return moved != null ? moved : 0;
+    }
+}
@@ -1,28 +1,49 @@
 package com.payflow.service;
 
+import com.payflow.cache.PaymentResponseCache;
+import com.payflow.dto.BatchRefundResponse;
 import com.payflow.dto.PaymentRequest;
 import com.payflow.dto.PaymentResponse;
 import com.payflow.dto.RefundRequest;
+import com.payflow.dto.RefundResult;
+import com.payflow.entity.ArchivedPayment;
 import com.payflow.entity.Merchant;
 import com.payflow.entity.Payment;
 import com.payflow.exception.InvalidStateTransitionException;
 import com.payflow.exception.PaymentException;
+import com.payflow.metrics.PaymentMetrics;
+import com.payflow.repository.ArchivedPaymentRepository;
 import com.payflow.repository.PaymentRepository;
+import com.payflow.sharding.ShardRouter;
 import com.payflow.statemachine.PaymentEvent;
 import com.payflow.statemachine.PaymentState;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.statemachine.StateMachine;
 import org.springframework.statemachine.config.StateMachineFactory;
 import org.springframework.statemachine.support.DefaultStateMachineContext;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,14 +52,25 @@ import java.util.stream.Collectors;
 public class PaymentService {
 
     private final PaymentRepository paymentRepository;
+    private final ArchivedPaymentRepository archivedPaymentRepository;
     private final StateMachineFactory<PaymentState, PaymentEvent> stateMachineFactory;
+    private final PaymentResponseCache paymentResponseCache;
+    private final ShardRouter shardRouter;
+    private final PaymentMetrics paymentMetrics;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    @Value("${payflow.refunds.batch.chunk-size:500}")
+    private int refundChunkSize;
 
     @Transactional
     public PaymentResponse createPayment(Merchant merchant, PaymentRequest request) {
         log.info("Creating payment for merchant: {}", merchant.getMerchantId());
 
-        // Generate unique transaction ID
-        String transactionId = "TXN_" + UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
+        // Payments live on their merchant's shard; the shard is encoded into the transaction ID
+        int shard = shardRouter.shardOf(merchant.getMerchantId());
+        shardRouter.bindForTransaction(shard);
+        String transactionId = shardRouter.newId("TXN_", shard, 16);
 
         // Mask card number (store only last 4 digits)
         String maskedCard = "**** **** **** " + request.getCardNumber().substring(12);
@@ -55,46 +87,231 @@ public class PaymentService {
                 .refundedAmount(BigDecimal.ZERO)
                 .build();
 
-        payment = paymentRepository.save(payment);
+        payment = savePayment(payment);
+        paymentMetrics.recordCreated(merchant);
         log.info("Payment created with transaction ID: {}", transactionId);
 
         return mapToResponse(payment);
     }
 
-    @Transactional
+    /**
+     * Runs in two short transactions around the processor call. PROCESSING (with {@code processedAt})
+     * is committed before the processor is called, so a node that dies mid-call leaves a row the
+     * sweeper can fail instead of a PENDING one it would expire, and no row lock is held during the call.
+     */
     public PaymentResponse processPayment(String transactionId) {
         log.info("Processing payment: {}", transactionId);
-
-        Payment payment = getPaymentEntity(transactionId);
+        int shard = shardRouter.shardOf(transactionId);
 
         // Transition to PROCESSING
-        changePaymentState(payment, PaymentEvent.PROCESS);
-        payment.setProcessedAt(LocalDateTime.now());
-        payment = paymentRepository.save(payment);
+        Payment processing = inTransaction(shard, () -> {
+            Payment payment = lockPaymentEntity(transactionId);
+            changePaymentState(payment, PaymentEvent.PROCESS);
+            payment.setProcessedAt(LocalDateTime.now());
+            return savePayment(payment);
+        });
 
         // Simulate payment processing (in real system, this would call payment processor)
-        boolean success = simulatePaymentProcessing(payment);
-
-        if (success) {
-            changePaymentState(payment, PaymentEvent.COMPLETE);
-            payment.setCompletedAt(LocalDateTime.now());
-            log.info("Payment completed: {}", transactionId);
-        } else {
-            changePaymentState(payment, PaymentEvent.FAIL);
-            payment.setFailureReason("Insufficient funds");
-            log.warn("Payment failed: {}", transactionId);
-        }
-
-        payment = paymentRepository.save(payment);
+        boolean success = simulatePaymentProcessing(processing);
+
+        // Re-locked: the sweeper may have failed the payment if the call outlived processing-timeout
+        Payment payment = inTransaction(shard, () -> {
+            Payment locked = lockPaymentEntity(transactionId);
+            if (success) {
+                changePaymentState(locked, PaymentEvent.COMPLETE);
+                locked.setCompletedAt(LocalDateTime.now());
+                log.info("Payment completed: {}", transactionId);
+            } else {
+                changePaymentState(locked, PaymentEvent.FAIL);
+                locked.setFailureReason("Insufficient funds");
+                log.warn("Payment failed: {}", transactionId);
+            }
+            return savePayment(locked);
+        });
         return mapToResponse(payment);
     }
 
     @Transactional
     public PaymentResponse refundPayment(RefundRequest request) {
         log.info("Processing refund for transaction: {}", request.getTransactionId());
+        shardRouter.bindForTransaction(shardRouter.shardOf(request.getTransactionId()));
+
+        Payment payment = lockPaymentEntity(request.getTransactionId());
+        applyRefund(stateMachineFactory.getStateMachine(), payment, request);
+
+        payment = savePayment(payment);
+        return mapToResponse(payment);
+    }
+
+    /**
+     * Applies many refunds at once. Payments are loaded with one {@code IN} query per chunk,
+     * validated and transitioned in memory, and written back with batched updates in one
+     * transaction per chunk. A failing item is reported in its result without aborting the rest.
+     */
+    public BatchRefundResponse refundPayments(List<RefundRequest> requests) {
+        log.info("Processing batch refund of {} items", requests.size());
+        RefundResult[] results = new RefundResult[requests.size()];
+
+        // Keep each chunk on a single shard so it can be one transaction
+        Map<Integer, List<Integer>> indexesByShard = new TreeMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            indexesByShard.computeIfAbsent(shardRouter.shardOf(requests.get(i).getTransactionId()), shard -> new ArrayList<>())
+                    .add(i);
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        indexesByShard.forEach((shard, indexes) -> {
+            for (int from = 0; from < indexes.size(); from += refundChunkSize) {
+                List<Integer> chunk = indexes.subList(from, Math.min(from + refundChunkSize, indexes.size()));
+                try {
+                    shardRouter.onShard(shard, () -> transactionTemplate.execute(status -> {
+                        refundChunk(requests, chunk, results);
+                        return null;
+                    }));
+                } catch (RuntimeException e) {
+                    // The chunk rolled back as a whole, so nothing in it was applied
+                    log.error("Batch refund chunk of {} items failed on shard {}", chunk.size(), shard, e);
+                    for (int index : chunk) {
+                        results[index] = RefundResult.failure(requests.get(index).getTransactionId(),
+                                "Refund could not be saved, retry");
+                    }
+                }
+            }
+        });
+
+        List<RefundResult> resultList = Arrays.asList(results);
+        int succeeded = (int) resultList.stream().filter(RefundResult::isSuccess).count();
+        log.info("Batch refund finished: {} succeeded, {} failed", succeeded, results.length - succeeded);
+        return BatchRefundResponse.builder()
+                .succeeded(succeeded)
+                .failed(results.length - succeeded)
+                .results(resultList)
+                .build();
+    }
+
+    /**
+     * Claims up to {@code limit} PENDING payments created before {@code createdBefore} and expires them.
+     * Rows locked by a concurrent sweeper on another node are skipped.
+     */
+    @Transactional
+    public int expireAbandonedPayments(LocalDateTime createdBefore, int limit) {
+        List<Payment> claimed = paymentRepository.claimByStatusAndCreatedAtBefore(
+                PaymentState.PENDING, createdBefore, PageRequest.of(0, limit));
+        for (Payment payment : claimed) {
+            changePaymentState(payment, PaymentEvent.EXPIRE);
+            payment.setFailureReason("Expired before processing");
+            log.info("Payment expired: {}", payment.getTransactionId());
+        }
+        savePayments(claimed);
+        return claimed.size();
+    }
+
+    /**
+     * Claims up to {@code limit} payments stuck in PROCESSING since before {@code processedBefore}
+     * (e.g. the node died mid-processing) and fails them.
+     */
+    @Transactional
+    public int failStuckPayments(LocalDateTime processedBefore, int limit) {
+        List<Payment> claimed = paymentRepository.claimByStatusAndProcessedAtBefore(
+                PaymentState.PROCESSING, processedBefore, PageRequest.of(0, limit));
+        for (Payment payment : claimed) {
+            changePaymentState(payment, PaymentEvent.FAIL);
+            payment.setFailureReason("Processing abandoned");
+            log.warn("Stuck payment failed: {}", payment.getTransactionId());
+        }
+        savePayments(claimed);
+        return claimed.size();
+    }
+
+    // Not transactional: cache hits should not check out a connection
+    public PaymentResponse getPayment(String transactionId) {
+        // Fall back to the archive for old terminal payments moved out of the hot table
+        return paymentResponseCache.get(transactionId, () -> shardRouter.onShard(shardRouter.shardOf(transactionId), () ->
+                paymentRepository.findByTransactionId(transactionId)
+                        .map(this::mapToResponse)
+                        .or(() -> archivedPaymentRepository.findByTransactionId(transactionId).map(this::mapToResponse))
+                        .orElseThrow(() -> new PaymentException("Payment not found: " + transactionId))));
+    }
+
+    // Keyed by the public merchant ID: numeric IDs are only unique within a shard
+    @Transactional(readOnly = true)
+    public List<PaymentResponse> getMerchantPayments(String merchantId) {
+        shardRouter.bindForTransaction(shardRouter.shardOf(merchantId));
+        return paymentRepository.findByMerchant_MerchantId(merchantId).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    // Results come back grouped by shard, not in any global order
+    public List<PaymentResponse> getPaymentsByStatus(PaymentState status) {
+        return shardRouter.fanOut(() -> paymentRepository.findByStatus(status)).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    // Every write goes through here so a cached response never outlives a change, state or amount
+    private Payment savePayment(Payment payment) {
+        paymentResponseCache.evictAfterCommit(payment.getTransactionId());
+        return paymentRepository.save(payment);
+    }
+
+    private void savePayments(Collection<Payment> payments) {
+        for (Payment payment : payments) {
+            paymentResponseCache.evictAfterCommit(payment.getTransactionId());
+        }
+        paymentRepository.saveAll(payments);
+    }
+
+    private <T> T inTransaction(int shard, Supplier<T> work) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        return shardRouter.onShard(shard, () -> transactionTemplate.execute(status -> work.get()));
+    }
+
+    private Payment lockPaymentEntity(String transactionId) {
+        return paymentRepository.lockByTransactionId(transactionId)
+                .orElseThrow(() -> new PaymentException("Payment not found: " + transactionId));
+    }
 
-        Payment payment = getPaymentEntity(request.getTransactionId());
+    private void refundChunk(List<RefundRequest> requests, List<Integer> chunk, RefundResult[] results) {
+        Set<String> transactionIds = new HashSet<>();
+        for (int index : chunk) {
+            transactionIds.add(requests.get(index).getTransactionId());
+        }
+        Map<String, Payment> payments = new HashMap<>();
+        for (Payment payment : paymentRepository.lockByTransactionIdIn(transactionIds)) {
+            payments.put(payment.getTransactionId(), payment);
+        }
 
+        // One state machine for the whole chunk instead of one per refund
+        StateMachine<PaymentState, PaymentEvent> stateMachine = stateMachineFactory.getStateMachine();
+        Map<String, Payment> modified = new LinkedHashMap<>();
+        for (int index : chunk) {
+            RefundRequest request = requests.get(index);
+            Payment payment = payments.get(request.getTransactionId());
+            if (payment == null) {
+                results[index] = RefundResult.failure(request.getTransactionId(),
+                        "Payment not found: " + request.getTransactionId());
+                continue;
+            }
+            try {
+                applyRefund(stateMachine, payment, request);
+                modified.put(payment.getTransactionId(), payment);
+                results[index] = RefundResult.success(request.getTransactionId(), mapToResponse(payment));
+            } catch (PaymentException | InvalidStateTransitionException e) {
+                results[index] = RefundResult.failure(request.getTransactionId(), e.getMessage());
+            }
+        }
+
+        // Flushed as batched UPDATEs (hibernate.jdbc.batch_size), then detached so the next chunk
+        // starts from an empty persistence context: memory stays bounded by the chunk size, and
+        // IDENTITY ids from another shard cannot collide with entities still held from this one
+        savePayments(modified.values());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // Validates against amount/refundedAmount before any change, so a rejected refund leaves the payment untouched
+    private void applyRefund(StateMachine<PaymentState, PaymentEvent> stateMachine, Payment payment, RefundRequest request) {
         // Validate payment can be refunded
         if (payment.getStatus() != PaymentState.COMPLETED &&
                 payment.getStatus() != PaymentState.PARTIALLY_REFUNDED) {
@@ -116,51 +333,25 @@ public class PaymentService {
 
         // Change state FIRST, then update amount
         if (isFullRefund) {
-            changePaymentState(payment, PaymentEvent.REFUND);
+            changePaymentState(stateMachine, payment, PaymentEvent.REFUND);
             payment.setRefundedAmount(totalRefunded);
             log.info("Full refund processed for: {}", request.getTransactionId());
         } else {
             // Only transition to PARTIALLY_REFUNDED if currently COMPLETED
             if (payment.getStatus() == PaymentState.COMPLETED) {
-                changePaymentState(payment, PaymentEvent.PARTIAL_REFUND);
+                changePaymentState(stateMachine, payment, PaymentEvent.PARTIAL_REFUND);
             }
             // If already PARTIALLY_REFUNDED, the internal transition keeps it there
             payment.setRefundedAmount(totalRefunded);
             log.info("Partial refund processed for: {}", request.getTransactionId());
         }
-
-        payment = paymentRepository.save(payment);
-        return mapToResponse(payment);
-    }
-
-    @Transactional(readOnly = true)
-    public PaymentResponse getPayment(String transactionId) {
-        Payment payment = getPaymentEntity(transactionId);
-        return mapToResponse(payment);
-    }
-
-    @Transactional(readOnly = true)
-    public List<PaymentResponse> getMerchantPayments(Long merchantId) {
-        return paymentRepository.findByMerchantId(merchantId).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
-    }
-
-    @Transactional(readOnly = true)
-    public List<PaymentResponse> getPaymentsByStatus(PaymentState status) {
-        return paymentRepository.findByStatus(status).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
-    }
-
-    private Payment getPaymentEntity(String transactionId) {
-        return paymentRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new PaymentException("Payment not found: " + transactionId));
     }
 
     private void changePaymentState(Payment payment, PaymentEvent event) {
-        StateMachine<PaymentState, PaymentEvent> stateMachine = stateMachineFactory.getStateMachine();
+        changePaymentState(stateMachineFactory.getStateMachine(), payment, event);
+    }
 
+    private void changePaymentState(StateMachine<PaymentState, PaymentEvent> stateMachine, Payment payment, PaymentEvent event) {
         stateMachine.stopReactively().block();
         stateMachine.getStateMachineAccessor()
                 .doWithAllRegions(accessor -> {
@@ -179,7 +370,9 @@ public class PaymentService {
             );
         }
         payment.setStatus(stateMachine.getState().getId());
+        paymentMetrics.recordTransition(payment);
     }
+
     private boolean simulatePaymentProcessing(Payment payment) {
         // Simulate processing time
         try {
@@ -207,4 +400,19 @@ public class PaymentService {
                 .completedAt(payment.getCompletedAt())
                 .build();
     }
+
+    private PaymentResponse mapToResponse(ArchivedPayment payment) {
+        return PaymentResponse.builder()
+                .transactionId(payment.getTransactionId())
+                .amount(payment.getAmount())
+                .currency(payment.getCurrency())
+                .status(payment.getStatus())
+                .cardNumberMasked(payment.getCardNumber())
+                .description(payment.getDescription())
+                .refundedAmount(payment.getRefundedAmount())
+                .failureReason(payment.getFailureReason())
+                .createdAt(payment.getCreatedAt())
+                .completedAt(payment.getCompletedAt())
+                .build();
+    }
 }
\ No newline at end of file
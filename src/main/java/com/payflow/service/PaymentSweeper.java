@@ -0,0 +1,65 @@
+package com.payflow.service;
+
+import com.payflow.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Resolves payments left behind by abandoned checkouts or crashed nodes. Each batch is a short
+ * transaction that claims rows with {@code FOR UPDATE SKIP LOCKED}, so every app instance can
+ * run the sweeper at once without two nodes touching the same payment.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payflow.sweeper.enabled", havingValue = "true")
+public class PaymentSweeper {
+
+    private final PaymentService paymentService;
+    private final ShardRouter shardRouter;
+    private final Duration pendingTimeout;
+    private final Duration processingTimeout;
+    private final int batchSize;
+
+    public PaymentSweeper(PaymentService paymentService,
+                          ShardRouter shardRouter,
+                          @Value("${payflow.sweeper.pending-timeout:30m}") Duration pendingTimeout,
+                          @Value("${payflow.sweeper.processing-timeout:10m}") Duration processingTimeout,
+                          @Value("${payflow.sweeper.batch-size:50}") int batchSize) {
+        this.paymentService = paymentService;
+        this.shardRouter = shardRouter;
+        this.pendingTimeout = pendingTimeout;
+        this.processingTimeout = processingTimeout;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${payflow.sweeper.interval:1m}", initialDelayString = "${payflow.sweeper.initial-delay:1m}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime createdBefore = now.minus(pendingTimeout);
+        LocalDateTime processedBefore = now.minus(processingTimeout);
+
+        shardRouter.onEachShard(shard -> {
+            int expired = 0;
+            int claimed;
+            do {
+                claimed = paymentService.expireAbandonedPayments(createdBefore, batchSize);
+                expired += claimed;
+            } while (claimed == batchSize);
+
+            int failed = 0;
+            do {
+                claimed = paymentService.failStuckPayments(processedBefore, batchSize);
+                failed += claimed;
+            } while (claimed == batchSize);
+
+            if (expired > 0 || failed > 0) {
+                log.info("Sweeper on shard {}: expired {} pending, failed {} stuck processing", shard, expired, failed);
+            }
+        });
+    }
+}
@@ -0,0 +1,209 @@
+package com.payflow.sharding;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Merchant-keyed shard routing. Every public ID ({@code MERCH_}, {@code TXN_}, {@code sk_}) issued
+ * by this class carries an {@code S} marker plus two hex characters for the shard right after the
+ * prefix, e.g. {@code MERCH_S01A1B2C3D4}, so a merchant, payment or API key can be routed without
+ * a directory lookup. Legacy IDs are plain UUID hex and can never contain the marker.
+ *
+ * <p>With sharding disabled there is a single shard and every ID carries {@code S00}.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardRouter {
+
+    // Not a hex digit, so it never appears at this position in a legacy UUID-based ID
+    private static final char SHARD_MARKER = 'S';
+
+    private final int shardCount;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService fanOutExecutor;
+
+    public ShardRouter(ShardingProperties properties, PlatformTransactionManager transactionManager) {
+        if (properties.isEnabled() && properties.getShards().isEmpty()) {
+            throw new IllegalStateException("payflow.sharding.enabled=true but no payflow.sharding.shards configured");
+        }
+        this.shardCount = properties.isEnabled() ? properties.getShards().size() : 1;
+        if (shardCount > 256) {
+            throw new IllegalStateException("At most 256 shards are supported, got " + shardCount);
+        }
+
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        AtomicInteger threadId = new AtomicInteger();
+        this.fanOutExecutor = shardCount > 1
+                ? Executors.newFixedThreadPool(shardCount * 4, runnable -> {
+                    Thread thread = new Thread(runnable, "shard-fanout-" + threadId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Picks the home shard for a new merchant. Hashing the email keeps the email unique
+     * constraint meaningful across shards.
+     */
+    public int shardForKey(String key) {
+        return Math.floorMod(key.toLowerCase(Locale.ROOT).hashCode(), shardCount);
+    }
+
+    public int shardOf(String publicId) {
+        int marker = publicId.indexOf('_') + 1;
+        if (marker == 0 || publicId.length() < marker + 3
+                || Character.toUpperCase(publicId.charAt(marker)) != SHARD_MARKER) {
+            // IDs issued before sharding have no marker; they all live on the default shard
+            return 0;
+        }
+        int high = Character.digit(publicId.charAt(marker + 1), 16);
+        int low = Character.digit(publicId.charAt(marker + 2), 16);
+        int shard = (high << 4) | low;
+        return high < 0 || low < 0 || shard >= shardCount ? 0 : shard;
+    }
+
+    /**
+     * Builds {@code prefix + "S" + shard + random}. The shard code is added on top of
+     * {@code randomLength} random hex characters (at most 32), not carved out of them.
+     */
+    public String newId(String prefix, int shard, int randomLength) {
+        String random = UUID.randomUUID().toString().replace("-", "").substring(0, randomLength);
+        return (prefix + SHARD_MARKER + String.format("%02X", shard) + random).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Binds {@code shard} to the current thread until the returned scope is closed. The DataSource
+     * is wrapped in a lazy connection proxy, so this may be entered inside an already-open
+     * transaction as long as it happens before the first statement.
+     */
+    public ShardScope bind(int shard) {
+        Integer previous = ShardContext.current();
+        ShardContext.set(shard);
+        return () -> ShardContext.set(previous);
+    }
+
+    /**
+     * Binds {@code shard} until the current transaction completes, so the commit-time flush
+     * still routes to the same shard. Must be called before the transaction's first statement.
+     * Calls joining a transaction that is already bound to the same shard are no-ops, so the
+     * binding is undone exactly once, back to whatever was bound before the transaction.
+     */
+    public void bindForTransaction(int shard) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("bindForTransaction requires an active transaction");
+        }
+        Integer bound = (Integer) TransactionSynchronizationManager.getResource(this);
+        if (bound != null) {
+            if (bound != shard) {
+                throw new IllegalStateException("Transaction is bound to shard " + bound + ", cannot switch to " + shard);
+            }
+            return;
+        }
+
+        ShardScope scope = bind(shard);
+        TransactionSynchronizationManager.bindResource(this, shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // A REQUIRES_NEW transaction suspends this one and may bind its own shard
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResource(ShardRouter.this);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(ShardRouter.this, shard);
+                ShardContext.set(shard);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ShardRouter.this);
+                scope.close();
+            }
+        });
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        try (ShardScope ignored = bind(shard)) {
+            return work.get();
+        }
+    }
+
+    public void onEachShard(IntConsumer work) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            int current = shard;
+            onShard(current, () -> {
+                work.accept(current);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Runs a read-only query against every shard in parallel, each in its own transaction,
+     * and concatenates the results in shard order.
+     */
+    public <T> List<T> fanOut(Supplier<List<T>> query) {
+        if (fanOutExecutor == null) {
+            return onShard(0, () -> readOnlyTransaction.execute(status -> query.get()));
+        }
+
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int current = shard;
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> onShard(current, () -> readOnlyTransaction.execute(status -> query.get())),
+                    fanOutExecutor));
+        }
+
+        List<T> merged = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<T>> future : futures) {
+                merged.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return merged;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (fanOutExecutor != null) {
+            fanOutExecutor.shutdown();
+        }
+    }
+
+    public interface ShardScope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
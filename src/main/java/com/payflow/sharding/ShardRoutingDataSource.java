@@ -0,0 +1,12 @@
+package com.payflow.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        // No shard bound falls through to the default (shard 0)
+        return ShardContext.current();
+    }
+}
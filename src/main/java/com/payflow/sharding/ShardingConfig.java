@@ -0,0 +1,99 @@
+package com.payflow.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.relational.SchemaManager;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the single auto-configured DataSource with one routing DataSource per shard.
+ * The lazy proxy defers picking a physical connection until the first statement, which lets
+ * services bind the shard after the surrounding {@code @Transactional} has already begun.
+ *
+ * <p>Each shard gets its own Hikari pool configured from {@code spring.datasource.hikari.*},
+ * overridden per shard by {@code payflow.sharding.shards[n].hikari.*}.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "payflow.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardingProperties properties, Environment environment) {
+        Binder binder = Binder.get(environment);
+        Map<Object, Object> targets = new HashMap<>();
+        List<ShardingProperties.Shard> shards = properties.getShards();
+        for (int i = 0; i < shards.size(); i++) {
+            ShardingProperties.Shard shard = shards.get(i);
+            DataSourceBuilder<HikariDataSource> builder = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword());
+            if (shard.getDriverClassName() != null) {
+                builder.driverClassName(shard.getDriverClassName());
+            }
+            HikariDataSource dataSource = builder.build();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+            new Binder(new MapConfigurationPropertySource(shard.getHikari()))
+                    .bind(ConfigurationPropertyName.EMPTY, Bindable.ofInstance(dataSource));
+            if (dataSource.getPoolName() == null) {
+                dataSource.setPoolName("shard-" + i);
+            }
+            targets.put(i, dataSource);
+        }
+
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(targets.get(0));
+        routing.afterPropertiesSet();
+
+        log.info("Sharding enabled across {} databases", shards.size());
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * Hibernate's ddl-auto only touches the default shard; create the mapped tables on the
+     * others when they are missing. Runs before any other runner, including the warm-up.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @ConditionalOnProperty(name = "payflow.sharding.initialize-schema", havingValue = "true")
+    public ApplicationRunner shardSchemaInitializer(ShardRouter shardRouter, EntityManagerFactory entityManagerFactory) {
+        return args -> {
+            SchemaManager schemaManager = entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager();
+            for (int shard = 1; shard < shardRouter.shardCount(); shard++) {
+                int current = shard;
+                shardRouter.onShard(current, () -> {
+                    try {
+                        schemaManager.validateMappedObjects();
+                    } catch (RuntimeException missing) {
+                        log.info("Creating schema on shard {}", current);
+                        schemaManager.exportMappedObjects(true);
+                    }
+                    return null;
+                });
+            }
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package com.payflow.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "payflow.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    // Create missing tables on shards other than shard 0 at startup (ddl-auto only covers shard 0)
+    private boolean initializeSchema = false;
+
+    // Order matters: the index is the shard ID encoded into merchant, transaction and API key IDs
+    private List<Shard> shards = new ArrayList<>();
+
+    // Pool settings come from spring.datasource.hikari.*; override them per shard with shards[n].hikari.*
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private Map<String, String> hikari = new HashMap<>();
+    }
+}
@@ -0,0 +1,186 @@
+package com.payflow.startup;
+
+import com.payflow.dto.MerchantRequest;
+import com.payflow.dto.PaymentRequest;
+import com.payflow.dto.PaymentResponse;
+import com.payflow.dto.RefundRequest;
+import com.payflow.entity.Merchant;
+import com.payflow.exception.MerchantNotFoundException;
+import com.payflow.exception.PaymentException;
+import com.payflow.service.MerchantService;
+import com.payflow.service.PaymentService;
+import com.payflow.sharding.ShardRouter;
+import com.payflow.statemachine.PaymentState;
+import com.payflow.velocity.VelocityChecker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+
+/**
+ * Runs the hot payment paths before the application reports ready. Application runners
+ * complete before Spring Boot publishes {@code ReadinessState.ACCEPTING_TRAFFIC}, so the
+ * readiness probe stays DOWN until the state machine, JPA queries and JIT are warm.
+ *
+ * <p>The writes go through the same service calls as real traffic (merchant signup, velocity
+ * check, payment insert, processing and refund updates, response mapping) inside one outer
+ * transaction that is always rolled back, so nothing is left in the database. Metrics and
+ * cache updates are registered for after commit and therefore never fire.
+ *
+ * <p>With lazy initialization the web layer (DispatcherServlet, controllers, message converters,
+ * exception handlers) is only created on the first request, so the warm-up finishes with a few
+ * loopback requests that fail validation. They carry {@link #WARMUP_HEADER} so
+ * {@link StartupTimer} does not count them as the first request.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "payflow.warmup.enabled", havingValue = "true")
+public class PaymentWarmUp implements ApplicationRunner {
+
+    static final String WARMUP_HEADER = "X-Payflow-Warmup";
+
+    private final PaymentService paymentService;
+    private final MerchantService merchantService;
+    private final VelocityChecker velocityChecker;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final Environment environment;
+    private final int iterations;
+
+    public PaymentWarmUp(PaymentService paymentService,
+                         MerchantService merchantService,
+                         VelocityChecker velocityChecker,
+                         ShardRouter shardRouter,
+                         PlatformTransactionManager transactionManager,
+                         Environment environment,
+                         @Value("${payflow.warmup.iterations:500}") int iterations) {
+        this.paymentService = paymentService;
+        this.merchantService = merchantService;
+        this.velocityChecker = velocityChecker;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.environment = environment;
+        this.iterations = iterations;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+
+        // Every service call below binds the merchant's shard for the transaction; binding it
+        // here as well means the thread is unbound again once the transaction is over
+        String email = "warmup-" + UUID.randomUUID() + "@payflow.invalid";
+        shardRouter.onShard(shardRouter.shardForKey(email), () -> transactionTemplate.execute(status -> {
+            try {
+                warmUpWrites(email);
+                // Push the pending UPDATEs through Hibernate's flush and the JDBC driver too
+                status.flush();
+            } catch (RuntimeException e) {
+                log.warn("Warm-up write path failed, continuing startup", e);
+            } finally {
+                status.setRollbackOnly();
+            }
+            return null;
+        }));
+
+        // Lookup misses exercise the read paths (hot table, archive fallback) outside the rolled-back transaction
+        try {
+            paymentService.getPayment("TXN_WARMUP");
+        } catch (PaymentException expected) {
+            // Not found is the expected outcome
+        }
+        try {
+            merchantService.getMerchant("MERCH_WARMUP");
+        } catch (MerchantNotFoundException expected) {
+            // Not found is the expected outcome
+        }
+
+        warmUpWebLayer();
+
+        log.info("Warm-up finished in {} ms ({} iterations)", (System.nanoTime() - start) / 1_000_000, iterations);
+    }
+
+    private void warmUpWrites(String email) {
+        String apiKey = merchantService.createMerchant(MerchantRequest.builder()
+                .name("Warm-up")
+                .email(email)
+                .build()).getApiKey();
+        Merchant merchant = merchantService.validateApiKey(apiKey);
+
+        PaymentResponse payment = null;
+        for (int i = 0; i < iterations; i++) {
+            // A distinct card and holder per attempt keeps the warm-up itself under the velocity limits
+            PaymentRequest request = PaymentRequest.builder()
+                    .amount(new BigDecimal("10.00"))
+                    .currency("USD")
+                    .cardNumber(String.format("4000%012d", i))
+                    .cardHolderName("Warm-up " + i)
+                    .cvv("123")
+                    .expiryDate("12/30")
+                    .description("warm-up")
+                    .build();
+            velocityChecker.check(merchant, request);
+            payment = paymentService.createPayment(merchant, request);
+        }
+        if (payment == null) {
+            return;
+        }
+
+        // Once only: processing includes the simulated processor delay
+        PaymentResponse processed = paymentService.processPayment(payment.getTransactionId());
+        if (processed.getStatus() == PaymentState.COMPLETED) {
+            paymentService.refundPayment(RefundRequest.builder()
+                    .transactionId(payment.getTransactionId())
+                    .amount(new BigDecimal("4.00"))
+                    .reason("warm-up")
+                    .build());
+            // The remainder: a refund without an amount is for the full payment amount
+            paymentService.refundPayment(RefundRequest.builder()
+                    .transactionId(payment.getTransactionId())
+                    .amount(new BigDecimal("6.00"))
+                    .reason("warm-up")
+                    .build());
+        }
+    }
+
+    // Requests that fail validation reach the controllers, converters, validator and exception
+    // handler without writing anything or logging errors
+    private void warmUpWebLayer() {
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+        if (port == null) {
+            return;
+        }
+        String base = "http://localhost:" + port + "/api/v1";
+        HttpClient client = HttpClient.newHttpClient();
+        try {
+            for (int i = 0; i < Math.max(1, iterations / 10); i++) {
+                post(client, base + "/merchants", "{\"name\": \"Warm-up\"}");
+                post(client, base + "/payments/refunds/batch", "{\"refunds\": [null]}");
+            }
+        } catch (IOException e) {
+            log.warn("Warm-up web requests failed, continuing startup", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void post(HttpClient client, String uri, String json) throws IOException, InterruptedException {
+        client.send(HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/json")
+                .header(WARMUP_HEADER, "true")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build(), HttpResponse.BodyHandlers.discarding());
+    }
+}
@@ -0,0 +1,48 @@
+package com.payflow.startup;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Logs time-to-ready and time-to-first-request, both measured from JVM start,
+ * so fast-start settings can be compared run over run.
+ */
+@Slf4j
+@Component
+public class StartupTimer extends OncePerRequestFilter {
+
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        log.info("Startup: ready {} ms after JVM start", sinceJvmStart());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!firstRequestSeen.get() && request.getHeader(PaymentWarmUp.WARMUP_HEADER) == null
+                    && firstRequestSeen.compareAndSet(false, true)) {
+                log.info("Startup: first request ({} {}) served {} ms after JVM start",
+                        request.getMethod(), request.getRequestURI(), sinceJvmStart());
+            }
+        }
+    }
+
+    private static long sinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
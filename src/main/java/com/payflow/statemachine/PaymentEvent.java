@@ -5,5 +5,6 @@ public enum PaymentEvent {
     COMPLETE,       // Mark as completed
     FAIL,           // Mark as failed
     REFUND,         // Initiate refund
-    PARTIAL_REFUND  // Partial refund
+    PARTIAL_REFUND, // Partial refund
+    EXPIRE          // Expire an abandoned payment
 }
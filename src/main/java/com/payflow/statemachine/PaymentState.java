@@ -6,5 +6,6 @@ public enum PaymentState {
     COMPLETED,      // Successfully processed
     FAILED,         // Processing failed
     REFUNDED,       // Payment refunded
-    PARTIALLY_REFUNDED  // Partial refund applied
+    PARTIALLY_REFUNDED, // Partial refund applied
+    EXPIRED         // Abandoned before processing
 }
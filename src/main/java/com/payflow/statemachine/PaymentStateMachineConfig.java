@@ -1,30 +1,56 @@
 package com.payflow.statemachine;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.statemachine.config.EnableStateMachineFactory;
-import org.springframework.statemachine.config.StateMachineConfigurerAdapter;
+import org.springframework.statemachine.config.StateMachineBuilder;
+import org.springframework.statemachine.config.StateMachineFactory;
 import org.springframework.statemachine.config.builders.StateMachineStateConfigurer;
 import org.springframework.statemachine.config.builders.StateMachineTransitionConfigurer;
+import org.springframework.statemachine.config.configurers.StateConfigurer;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Set;
 
+/**
+ * Builds the payment {@link StateMachineFactory} with {@link StateMachineBuilder} in a plain
+ * {@code @Bean} rather than {@code @EnableStateMachineFactory}: the annotation registers its
+ * configuration builders as beans, which Spring AOT cannot generate code for.
+ */
 @Slf4j
 @Configuration
-@EnableStateMachineFactory
-public class PaymentStateMachineConfig extends StateMachineConfigurerAdapter<PaymentState, PaymentEvent> {
+public class PaymentStateMachineConfig {
 
-    @Override
-    public void configure(StateMachineStateConfigurer<PaymentState, PaymentEvent> states) throws Exception {
-        states
+    // FAILED is terminal - can't recover
+    // REFUNDED is terminal - process complete
+    // EXPIRED is terminal - abandoned before processing
+    public static final Set<PaymentState> TERMINAL_STATES =
+            Collections.unmodifiableSet(EnumSet.of(PaymentState.FAILED, PaymentState.REFUNDED, PaymentState.EXPIRED));
+
+    public static boolean isTerminal(PaymentState state) {
+        return TERMINAL_STATES.contains(state);
+    }
+
+    @Bean
+    public StateMachineFactory<PaymentState, PaymentEvent> stateMachineFactory() throws Exception {
+        StateMachineBuilder.Builder<PaymentState, PaymentEvent> builder = StateMachineBuilder.builder();
+        configureStates(builder.configureStates());
+        configureTransitions(builder.configureTransitions());
+        return builder.createFactory();
+    }
+
+    private static void configureStates(StateMachineStateConfigurer<PaymentState, PaymentEvent> states) throws Exception {
+        StateConfigurer<PaymentState, PaymentEvent> stateConfigurer = states
                 .withStates()
                 .initial(PaymentState.PENDING)
-                .states(EnumSet.allOf(PaymentState.class))
-                .end(PaymentState.FAILED)      // FAILED is terminal - can't recover
-                .end(PaymentState.REFUNDED);   // REFUNDED is terminal - process complete
+                .states(EnumSet.allOf(PaymentState.class));
+
+        for (PaymentState terminal : TERMINAL_STATES) {
+            stateConfigurer.end(terminal);
+        }
     }
 
-    @Override
-    public void configure(StateMachineTransitionConfigurer<PaymentState, PaymentEvent> transitions) throws Exception {
+    private static void configureTransitions(StateMachineTransitionConfigurer<PaymentState, PaymentEvent> transitions) throws Exception {
         transitions
                 // PENDING -> PROCESSING
                 .withExternal()
@@ -33,6 +59,13 @@ public class PaymentStateMachineConfig extends StateMachineConfigurerAdapter<Pay
                 .event(PaymentEvent.PROCESS)
                 .and()
 
+                // PENDING -> EXPIRED (abandoned, never processed)
+                .withExternal()
+                .source(PaymentState.PENDING)
+                .target(PaymentState.EXPIRED)
+                .event(PaymentEvent.EXPIRE)
+                .and()
+
                 // PROCESSING -> COMPLETED
                 .withExternal()
                 .source(PaymentState.PROCESSING)
@@ -0,0 +1,40 @@
+package com.payflow.velocity;
+
+/**
+ * Sliding-window log of permitted attempts, held in a ring buffer sized to the rule's limit.
+ * The buffer is full exactly when the limit has been reached inside the window.
+ */
+class SlidingWindowCounter {
+
+    private final long[] timestamps;
+    private final long windowNanos;
+    private int head;   // Index of the oldest attempt
+    private int count;
+
+    SlidingWindowCounter(int maxAttempts, long windowNanos) {
+        this.timestamps = new long[maxAttempts];
+        this.windowNanos = windowNanos;
+    }
+
+    synchronized boolean tryAcquire(long now) {
+        expire(now);
+        if (count == timestamps.length) {
+            return false;
+        }
+        timestamps[(head + count) % timestamps.length] = now;
+        count++;
+        return true;
+    }
+
+    synchronized boolean isIdle(long now) {
+        expire(now);
+        return count == 0;
+    }
+
+    private void expire(long now) {
+        while (count > 0 && now - timestamps[head] >= windowNanos) {
+            head = (head + 1) % timestamps.length;
+            count--;
+        }
+    }
+}
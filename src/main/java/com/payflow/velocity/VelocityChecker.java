@@ -0,0 +1,154 @@
+package com.payflow.velocity;
+
+import com.payflow.dto.PaymentRequest;
+import com.payflow.entity.Merchant;
+import com.payflow.exception.VelocityLimitExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory velocity limits for payment attempts, checked before anything is written.
+ * Counters are keyed by merchant, rule and an HMAC of the card/cardholder under a random
+ * per-process key, so no card data is retained and fingerprints cannot be brute-forced
+ * back to a card number without that key.
+ *
+ * <p>Idle counters are evicted on a schedule. Once {@code max-keys} counters exist, a rule that
+ * would need a new counter is skipped (and counted) until the sweep frees room: the cap bounds
+ * memory and must not turn legitimate new cards away.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(VelocityProperties.class)
+public class VelocityChecker {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final VelocityProperties properties;
+    private final Map<String, SlidingWindowCounter> counters = new ConcurrentHashMap<>();
+    // Slots are reserved before a counter is inserted, so concurrent new keys cannot overshoot max-keys
+    private final AtomicInteger trackedKeys = new AtomicInteger();
+    private final AtomicLong untrackedChecks = new AtomicLong();
+    private final ThreadLocal<Mac> fingerprintMac;
+
+    public VelocityChecker(VelocityProperties properties) {
+        this.properties = properties;
+        // Counters are in-memory only, so the key never needs to outlive the process
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        SecretKeySpec secretKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        this.fingerprintMac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(secretKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(HMAC_ALGORITHM + " not available", e);
+            }
+        });
+    }
+
+    public void check(Merchant merchant, PaymentRequest request) {
+        check(merchant, request, System.nanoTime());
+    }
+
+    void check(Merchant merchant, PaymentRequest request, long now) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        List<VelocityProperties.Rule> rules = properties.getRules();
+        for (int i = 0; i < rules.size(); i++) {
+            VelocityProperties.Rule rule = rules.get(i);
+            String key = merchant.getMerchantId() + ':' + i + ':' + fingerprint(rule.getScope(), request);
+
+            SlidingWindowCounter counter = counters.get(key);
+            if (counter == null) {
+                counter = track(key, rule);
+                if (counter == null) {
+                    // At capacity: fail open. Room is only made by the scheduled sweep, never on the request path
+                    untrackedChecks.incrementAndGet();
+                    continue;
+                }
+            }
+
+            if (!counter.tryAcquire(now)) {
+                log.warn("Velocity limit '{}' exceeded for merchant: {}", rule.getName(), merchant.getMerchantId());
+                throw new VelocityLimitExceededException(
+                        String.format("Too many payment attempts (limit: %d per %s)", rule.getMaxAttempts(), rule.getWindow())
+                );
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payflow.velocity.eviction-interval:30s}")
+    public void evictIdleCounters() {
+        evictIdleCounters(System.nanoTime());
+    }
+
+    void evictIdleCounters(long now) {
+        int evicted = 0;
+        for (Map.Entry<String, SlidingWindowCounter> entry : counters.entrySet()) {
+            if (entry.getValue().isIdle(now) && counters.remove(entry.getKey(), entry.getValue())) {
+                trackedKeys.decrementAndGet();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle velocity counters", evicted);
+        }
+
+        long untracked = untrackedChecks.getAndSet(0);
+        if (untracked > 0) {
+            log.warn("Velocity counter capacity ({}) reached: {} rule checks skipped since the last sweep",
+                    properties.getMaxKeys(), untracked);
+        }
+    }
+
+    int trackedKeys() {
+        return trackedKeys.get();
+    }
+
+    long untrackedChecks() {
+        return untrackedChecks.get();
+    }
+
+    // Returns null when max-keys counters already exist and none was added for this key meanwhile
+    private SlidingWindowCounter track(String key, VelocityProperties.Rule rule) {
+        if (trackedKeys.incrementAndGet() > properties.getMaxKeys()) {
+            trackedKeys.decrementAndGet();
+            return counters.get(key);
+        }
+        boolean[] created = new boolean[1];
+        SlidingWindowCounter counter = counters.computeIfAbsent(key, k -> {
+            created[0] = true;
+            return new SlidingWindowCounter(rule.getMaxAttempts(), rule.getWindow().toNanos());
+        });
+        if (!created[0]) {
+            trackedKeys.decrementAndGet();  // Another thread inserted this key first; give the slot back
+        }
+        return counter;
+    }
+
+    private String fingerprint(VelocityScope scope, PaymentRequest request) {
+        String value = switch (scope) {
+            case CARD -> request.getCardNumber();
+            case CARDHOLDER -> request.getCardHolderName().trim().toLowerCase(Locale.ROOT);
+        };
+        byte[] digest = fingerprintMac.get().doFinal(value.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest, 0, 16);
+    }
+}
@@ -0,0 +1,27 @@
+package com.payflow.velocity;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "payflow.velocity")
+public class VelocityProperties {
+
+    private boolean enabled = true;
+
+    // Cap on tracked (merchant, rule, fingerprint) keys; beyond it, rules needing a new key are skipped (fail open)
+    private int maxKeys = 100_000;
+
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+        private String name;
+        private VelocityScope scope = VelocityScope.CARD;
+        private Duration window = Duration.ofMinutes(1);
+        private int maxAttempts = 10;
+    }
+}
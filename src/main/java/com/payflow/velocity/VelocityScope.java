@@ -0,0 +1,6 @@
+package com.payflow.velocity;
+
+public enum VelocityScope {
+    CARD,       // Same card number at the same merchant
+    CARDHOLDER  // Same cardholder name at the same merchant
+}
@@ -0,0 +1,91 @@
+package com.payflow.cache;
+
+import com.payflow.dto.PaymentResponse;
+import com.payflow.statemachine.PaymentState;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentResponseCacheTest {
+
+    @Test
+    void activePaymentsExpireBeforeTerminalOnes() throws Exception {
+        PaymentResponseCache cache = new PaymentResponseCache(100, Duration.ofMillis(50), Duration.ofHours(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("TXN_ACTIVE", () -> load(loads, "TXN_ACTIVE", PaymentState.COMPLETED));
+        cache.get("TXN_DONE", () -> load(loads, "TXN_DONE", PaymentState.REFUNDED));
+        cache.get("TXN_ACTIVE", () -> load(loads, "TXN_ACTIVE", PaymentState.COMPLETED));
+        cache.get("TXN_DONE", () -> load(loads, "TXN_DONE", PaymentState.REFUNDED));
+        assertEquals(2, loads.get());
+
+        Thread.sleep(100);
+        cache.get("TXN_ACTIVE", () -> load(loads, "TXN_ACTIVE", PaymentState.COMPLETED));
+        cache.get("TXN_DONE", () -> load(loads, "TXN_DONE", PaymentState.REFUNDED));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void evictionDuringALoadKeepsTheLoadedRowOutOfTheCache() {
+        PaymentResponseCache cache = new PaymentResponseCache(100, Duration.ofHours(1), Duration.ofHours(1));
+
+        // A write commits and evicts while this read is still holding the pre-commit row
+        PaymentResponse stale = cache.get("TXN_A", () -> {
+            PaymentResponse response = response("TXN_A", PaymentState.COMPLETED);
+            cache.evict("TXN_A");
+            return response;
+        });
+        assertEquals(PaymentState.COMPLETED, stale.getStatus());
+
+        PaymentResponse fresh = cache.get("TXN_A", () -> response("TXN_A", PaymentState.REFUNDED));
+        assertEquals(PaymentState.REFUNDED, fresh.getStatus());
+        assertSame(fresh, cache.get("TXN_A", () -> response("TXN_A", PaymentState.FAILED)));
+    }
+
+    @Test
+    void evictAfterCommitEvictsAgainWhenTheTransactionCompletes() {
+        PaymentResponseCache cache = new PaymentResponseCache(100, Duration.ofHours(1), Duration.ofHours(1));
+        cache.get("TXN_A", () -> response("TXN_A", PaymentState.PENDING));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evictAfterCommit("TXN_A");
+            // A concurrent read before the commit sees, and caches, the old row
+            cache.get("TXN_A", () -> response("TXN_A", PaymentState.PENDING));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(PaymentState.PROCESSING,
+                cache.get("TXN_A", () -> response("TXN_A", PaymentState.PROCESSING)).getStatus());
+    }
+
+    @Test
+    void staysWithinMaxSize() {
+        PaymentResponseCache cache = new PaymentResponseCache(50, Duration.ofHours(1), Duration.ofHours(2));
+        for (int i = 0; i < 1_000; i++) {
+            String transactionId = "TXN_" + i;
+            PaymentState status = i % 2 == 0 ? PaymentState.PENDING : PaymentState.REFUNDED;
+            cache.get(transactionId, () -> response(transactionId, status));
+            assertTrue(cache.size() <= 50, "size " + cache.size());
+        }
+    }
+
+    private static PaymentResponse load(AtomicInteger loads, String transactionId, PaymentState status) {
+        loads.incrementAndGet();
+        return response(transactionId, status);
+    }
+
+    private static PaymentResponse response(String transactionId, PaymentState status) {
+        return PaymentResponse.builder().transactionId(transactionId).status(status).build();
+    }
+}
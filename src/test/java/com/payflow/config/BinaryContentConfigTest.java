@@ -0,0 +1,64 @@
+package com.payflow.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:payflow_content_test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "payflow.archive.enabled=false",
+        "payflow.sweeper.enabled=false"
+})
+@AutoConfigureMockMvc
+class BinaryContentConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void wildcardAcceptGetsJsonErrors() throws Exception {
+        mockMvc.perform(get("/api/v1/payments/TXN_NOPE").accept(MediaType.ALL))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.message").value("Payment not found: TXN_NOPE"));
+
+        mockMvc.perform(get("/api/v1/merchants/MERCH_NOPE").accept(MediaType.ALL))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void missingAcceptGetsJson() throws Exception {
+        mockMvc.perform(get("/api/v1/merchants"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(get("/api/v1/payments/TXN_NOPE"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void binaryFormatsAreServedWhenAsked() throws Exception {
+        mockMvc.perform(get("/api/v1/merchants").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+
+        mockMvc.perform(get("/api/v1/merchants").accept(MediaType.parseMediaType(BinaryContentConfig.APPLICATION_SMILE_VALUE)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BinaryContentConfig.APPLICATION_SMILE_VALUE));
+    }
+}
@@ -0,0 +1,60 @@
+package com.payflow.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A real server: the SSE frames are read off the socket exactly as a browser EventSource would see them
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:payflow_metrics_test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "payflow.archive.enabled=false",
+        "payflow.sweeper.enabled=false",
+        "payflow.metrics.tick=100ms"
+})
+class MetricsControllerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void streamSendsJsonMetricsEvents() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/metrics/stream"))
+                .header("Accept", "*/*")
+                .timeout(Duration.ofSeconds(10))
+                .build();
+
+        HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+
+        Optional<String> data;
+        try (Stream<String> lines = response.body()) {
+            data = lines.dropWhile(line -> !line.equals("event:metrics"))
+                    .filter(line -> line.startsWith("data:"))
+                    .findFirst();
+        }
+
+        assertTrue(data.isPresent(), "no metrics event received");
+        JsonNode snapshot = JsonMapper.builder().build().readTree(data.get().substring("data:".length()));
+        assertTrue(snapshot.has("timestamp"));
+        assertTrue(snapshot.get("merchants").isArray());
+    }
+}
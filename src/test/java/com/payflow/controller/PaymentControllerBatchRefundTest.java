@@ -0,0 +1,59 @@
+package com.payflow.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:payflow_batch_controller_test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "payflow.archive.enabled=false",
+        "payflow.sweeper.enabled=false"
+})
+@AutoConfigureMockMvc
+class PaymentControllerBatchRefundTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void nullItemRejectsTheBatch() throws Exception {
+        mockMvc.perform(post("/api/v1/payments/refunds/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refunds\": [{\"transactionId\": \"TXN_A\"}, null]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$['refunds[1]']").value("Refund must not be null"));
+    }
+
+    @Test
+    void invalidItemsAreReportedByIndex() throws Exception {
+        mockMvc.perform(post("/api/v1/payments/refunds/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refunds\": [{\"transactionId\": \"TXN_A\"}, {\"amount\": 5},"
+                                + " {\"transactionId\": \"TXN_C\", \"amount\": 0}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$['refunds[1].transactionId']").value("Transaction ID is required"))
+                .andExpect(jsonPath("$['refunds[2].amount']").value("Refund amount must be greater than 0"));
+    }
+
+    @Test
+    void validItemsAreProcessedIndependently() throws Exception {
+        mockMvc.perform(post("/api/v1/payments/refunds/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refunds\": [{\"transactionId\": \"TXN_MISSING\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[0].success").value(false));
+    }
+}
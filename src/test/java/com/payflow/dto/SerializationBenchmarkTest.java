@@ -0,0 +1,131 @@
+package com.payflow.dto;
+
+import com.payflow.statemachine.PaymentState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * In-process comparison of the three wire formats the payment API speaks, without HTTP or
+ * server overhead in the numbers (see {@code scripts/serialization-benchmark.sh} for those).
+ * A plain timed loop, not a JMH harness: the figures are for relative comparison only.
+ *
+ * <p>The round-trip and size checks run with every build; the timed loops only run with
+ * {@code mvn test -Dtest=SerializationBenchmarkTest -Dpayflow.benchmark=true}. Raise the loop
+ * count with {@code -Dpayflow.benchmark.iterations=200000}.
+ */
+class SerializationBenchmarkTest {
+
+    private static final int ITERATIONS = Integer.getInteger("payflow.benchmark.iterations", 20_000);
+
+    private static final Map<String, ObjectMapper> MAPPERS = new LinkedHashMap<>();
+
+    static {
+        MAPPERS.put("json", JsonMapper.builder().build());
+        MAPPERS.put("cbor", CBORMapper.builder().build());
+        MAPPERS.put("smile", SmileMapper.builder().build());
+    }
+
+    private final PaymentRequest request = PaymentRequest.builder()
+            .amount(new BigDecimal("249.99"))
+            .currency("USD")
+            .cardNumber("4111111111111111")
+            .cardHolderName("Jane Cardholder")
+            .cvv("123")
+            .expiryDate("12/30")
+            .description("Order #100245 - 3 items")
+            .build();
+
+    private final PaymentResponse response = PaymentResponse.builder()
+            .transactionId("TXN_S00A1B2C3D4E5F60718")
+            .amount(new BigDecimal("249.99"))
+            .currency("USD")
+            .status(PaymentState.PARTIALLY_REFUNDED)
+            .cardNumberMasked("**** **** **** 1111")
+            .description("Order #100245 - 3 items")
+            .refundedAmount(new BigDecimal("50.00"))
+            .createdAt(LocalDateTime.of(2025, 3, 14, 9, 26, 53))
+            .completedAt(LocalDateTime.of(2025, 3, 14, 9, 26, 54))
+            .build();
+
+    @Test
+    void paymentRequestRoundTripsAndShrinks() {
+        assertRoundTripsAndShrinks(request, PaymentRequest.class);
+    }
+
+    @Test
+    void paymentResponseRoundTripsAndShrinks() {
+        assertRoundTripsAndShrinks(response, PaymentResponse.class);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "payflow.benchmark", matches = "true")
+    void benchmarkPaymentRequest() {
+        benchmark("PaymentRequest", request, PaymentRequest.class);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "payflow.benchmark", matches = "true")
+    void benchmarkPaymentResponse() {
+        benchmark("PaymentResponse", response, PaymentResponse.class);
+    }
+
+    private static <T> void assertRoundTripsAndShrinks(T value, Class<T> type) {
+        int jsonSize = MAPPERS.get("json").writeValueAsBytes(value).length;
+        for (Map.Entry<String, ObjectMapper> entry : MAPPERS.entrySet()) {
+            byte[] bytes = entry.getValue().writeValueAsBytes(value);
+            assertEquals(value, entry.getValue().readValue(bytes, type), entry.getKey() + " round trip");
+            if (!entry.getKey().equals("json")) {
+                assertTrue(bytes.length < jsonSize, entry.getKey() + " should be smaller than JSON");
+            }
+        }
+    }
+
+    private <T> void benchmark(String name, T value, Class<T> type) {
+        for (Map.Entry<String, ObjectMapper> entry : MAPPERS.entrySet()) {
+            ObjectMapper mapper = entry.getValue();
+            byte[] bytes = mapper.writeValueAsBytes(value);
+
+            // First pass warms up the JIT and Jackson's serializer caches; only the second is reported
+            timeWrites(mapper, value);
+            timeReads(mapper, bytes, type);
+            double writeNs = timeWrites(mapper, value);
+            double readNs = timeReads(mapper, bytes, type);
+
+            System.out.printf("%-16s %-6s %5d bytes  write %8.1f ns/op  read %8.1f ns/op%n",
+                    name, entry.getKey(), bytes.length, writeNs, readNs);
+        }
+    }
+
+    private static double timeWrites(ObjectMapper mapper, Object value) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += mapper.writeValueAsBytes(value).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(sink > 0);
+        return (double) elapsed / ITERATIONS;
+    }
+
+    private static double timeReads(ObjectMapper mapper, byte[] bytes, Class<?> type) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += mapper.readValue(bytes, type).hashCode();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(sink != Long.MIN_VALUE);
+        return (double) elapsed / ITERATIONS;
+    }
+}
@@ -0,0 +1,96 @@
+package com.payflow.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsBroadcasterTest {
+
+    private final MetricsBroadcaster broadcaster = new MetricsBroadcaster(
+            new PaymentMetrics(60, null, null), JsonMapper.builder().build(), 10, Duration.ofMinutes(1), Duration.ofHours(1), 4);
+
+    private final CountDownLatch unblock = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        unblock.countDown();
+        broadcaster.stop();
+    }
+
+    @Test
+    void slowClientDoesNotDelayOthers() throws Exception {
+        CountingEmitter slow = new CountingEmitter(unblock);
+        CountingEmitter fast = new CountingEmitter(null);
+        broadcaster.register(slow);
+        broadcaster.register(fast);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (fast.sends.get() < 3 && System.nanoTime() < deadline) {
+            broadcaster.tick();
+            Thread.sleep(20);
+        }
+
+        // The slow client's first write is still blocked, so its later ticks were skipped, not queued
+        assertTrue(fast.sends.get() >= 3);
+        assertEquals(1, slow.sends.get());
+    }
+
+    @Test
+    void brokenClientIsDropped() throws Exception {
+        CountingEmitter broken = new CountingEmitter(null) {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                super.send(builder);
+                throw new IOException("Broken pipe");
+            }
+        };
+        broadcaster.register(broken);
+
+        broadcaster.tick();
+        broken.awaitSends(1);
+        Thread.sleep(100);
+        broadcaster.tick();
+        Thread.sleep(100);
+
+        assertEquals(1, broken.sends.get());
+    }
+
+    private static class CountingEmitter extends SseEmitter {
+
+        final AtomicInteger sends = new AtomicInteger();
+        private final CountDownLatch block;
+
+        CountingEmitter(CountDownLatch block) {
+            this.block = block;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sends.incrementAndGet();
+            if (block != null) {
+                try {
+                    block.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        void awaitSends(int expected) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sends.get() < expected && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(sends.get() >= expected, "expected " + expected + " sends, got " + sends.get());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.payflow.service;
+
+import com.payflow.dto.MerchantRequest;
+import com.payflow.dto.PaymentRequest;
+import com.payflow.dto.PaymentResponse;
+import com.payflow.entity.Merchant;
+import com.payflow.repository.ArchivedPaymentRepository;
+import com.payflow.repository.PaymentRepository;
+import com.payflow.statemachine.PaymentState;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The archiver bean is enabled but its schedule never fires during the test; archiveTerminalPayments is called directly
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:payflow_archive_test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "payflow.archive.enabled=true",
+        "payflow.archive.initial-delay=1h",
+        "payflow.archive.batch-size=2",
+        "payflow.sweeper.enabled=false"
+})
+class PaymentArchiverTest {
+
+    @Autowired
+    private PaymentArchiver paymentArchiver;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private MerchantService merchantService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ArchivedPaymentRepository archivedPaymentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void movesOldTerminalPaymentsAcrossBatches() {
+        Merchant merchant = createMerchant();
+        String expired = createPayment(merchant, PaymentState.EXPIRED, 40);
+        String refunded = createPayment(merchant, PaymentState.REFUNDED, 40);
+        String failed = createPayment(merchant, PaymentState.FAILED, 40);
+        String recent = createPayment(merchant, PaymentState.FAILED, 1);
+        String refundable = createPayment(merchant, PaymentState.COMPLETED, 40);
+
+        // batch-size=2, so the three old terminal payments take two batches
+        paymentArchiver.archiveTerminalPayments();
+
+        for (String archived : new String[] {expired, refunded, failed}) {
+            assertTrue(paymentRepository.findByTransactionId(archived).isEmpty(), archived);
+            assertTrue(archivedPaymentRepository.findByTransactionId(archived).isPresent(), archived);
+        }
+        assertTrue(paymentRepository.findByTransactionId(recent).isPresent());
+        assertTrue(paymentRepository.findByTransactionId(refundable).isPresent());
+
+        // Lookups by ID fall back to the archive, listings only read the hot table
+        PaymentResponse archived = paymentService.getPayment(refunded);
+        assertEquals(PaymentState.REFUNDED, archived.getStatus());
+        assertEquals(0, new BigDecimal("20.00").compareTo(archived.getAmount()));
+        assertEquals(2, paymentService.getMerchantPayments(merchant.getMerchantId()).size());
+    }
+
+    @Test
+    void skipsRowsLockedByAnotherArchiver() throws Exception {
+        Merchant merchant = createMerchant();
+        String locked = createPayment(merchant, PaymentState.REFUNDED, 60);
+        String free = createPayment(merchant, PaymentState.REFUNDED, 60);
+
+        // Another node has claimed one row and not committed yet
+        CountDownLatch lockHeld = new CountDownLatch(1);
+        CountDownLatch archiveDone = new CountDownLatch(1);
+        TransactionTemplate otherNode = new TransactionTemplate(transactionManager);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> otherNode.executeWithoutResult(status -> {
+            paymentRepository.lockByTransactionId(locked).orElseThrow();
+            lockHeld.countDown();
+            try {
+                archiveDone.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        try {
+            lockHeld.await(10, TimeUnit.SECONDS);
+            paymentArchiver.archiveTerminalPayments();
+        } finally {
+            archiveDone.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+        }
+
+        assertTrue(paymentRepository.findByTransactionId(locked).isPresent());
+        assertFalse(archivedPaymentRepository.findByTransactionId(locked).isPresent());
+        assertTrue(archivedPaymentRepository.findByTransactionId(free).isPresent());
+
+        paymentArchiver.archiveTerminalPayments();
+        assertTrue(archivedPaymentRepository.findByTransactionId(locked).isPresent());
+    }
+
+    private Merchant createMerchant() {
+        String apiKey = merchantService.createMerchant(MerchantRequest.builder()
+                .name("Archive Test")
+                .email("archive-" + UUID.randomUUID() + "@payflow.test")
+                .build()).getApiKey();
+        return merchantService.validateApiKey(apiKey);
+    }
+
+    // status and created_at are set with plain SQL; created_at is not updatable through JPA
+    private String createPayment(Merchant merchant, PaymentState status, int ageInDays) {
+        String transactionId = paymentService.createPayment(merchant, PaymentRequest.builder()
+                .amount(new BigDecimal("20.00"))
+                .currency("USD")
+                .cardNumber("4111111111111111")
+                .cardHolderName("Archive Holder")
+                .cvv("123")
+                .expiryDate("12/30")
+                .build()).getTransactionId();
+        jdbcTemplate.update("UPDATE payments SET status = ?, created_at = ? WHERE transaction_id = ?",
+                status.name(), LocalDateTime.now().minusDays(ageInDays), transactionId);
+        return transactionId;
+    }
+}
@@ -0,0 +1,136 @@
+package com.payflow.service;
+
+import com.payflow.dto.BatchRefundResponse;
+import com.payflow.dto.MerchantRequest;
+import com.payflow.dto.PaymentRequest;
+import com.payflow.dto.RefundRequest;
+import com.payflow.dto.RefundResult;
+import com.payflow.entity.Merchant;
+import com.payflow.entity.Payment;
+import com.payflow.repository.PaymentRepository;
+import com.payflow.statemachine.PaymentState;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// chunk-size=2 splits the six refunds below into three transactions
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:payflow_refund_test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "payflow.archive.enabled=false",
+        "payflow.sweeper.enabled=false",
+        "payflow.refunds.batch.chunk-size=2"
+})
+class PaymentServiceBatchRefundTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private MerchantService merchantService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Test
+    void refundPaymentsAppliesEachItemIndependentlyAcrossChunks() {
+        Merchant merchant = createMerchant();
+        String a = createCompletedPayment(merchant);
+        String b = createCompletedPayment(merchant);
+        String c = createCompletedPayment(merchant);
+        // Cached before the refunds; the refunds must evict it
+        assertEquals(PaymentState.COMPLETED, paymentService.getPayment(a).getStatus());
+
+        BatchRefundResponse response = paymentService.refundPayments(List.of(
+                refund(a, "40.00"),       // chunk 1: partial refund
+                refund(a, "60.00"),       // chunk 1: same payment again, sees the first refund
+                refund("TXN_NOPE", null), // chunk 2: unknown payment
+                refund(b, null),          // chunk 2: full refund
+                refund(c, "150.00"),      // chunk 3: more than the payment amount
+                refund(a, "1.00")         // chunk 3: already fully refunded by chunk 1
+        ));
+
+        assertEquals(3, response.getSucceeded());
+        assertEquals(3, response.getFailed());
+
+        List<RefundResult> results = response.getResults();
+        assertEquals(6, results.size());
+        assertEquals(List.of(a, a, "TXN_NOPE", b, c, a),
+                results.stream().map(RefundResult::getTransactionId).toList());
+        assertEquals(List.of(true, true, false, true, false, false),
+                results.stream().map(RefundResult::isSuccess).toList());
+        assertEquals(PaymentState.PARTIALLY_REFUNDED, results.get(0).getPayment().getStatus());
+        assertEquals(PaymentState.REFUNDED, results.get(1).getPayment().getStatus());
+        assertTrue(results.get(2).getError().contains("not found"));
+        assertTrue(results.get(4).getError().contains("exceeds"));
+
+        // The failures in chunks 2 and 3 did not roll back the successful items next to them
+        assertPayment(a, PaymentState.REFUNDED, "100.00");
+        assertPayment(b, PaymentState.REFUNDED, "100.00");
+        assertPayment(c, PaymentState.COMPLETED, "0.00");
+        assertEquals(PaymentState.REFUNDED, paymentService.getPayment(a).getStatus());
+    }
+
+    @Test
+    void refundPaymentsReportsEveryItemWhenNothingSucceeds() {
+        BatchRefundResponse response = paymentService.refundPayments(List.of(
+                refund("TXN_MISSING_1", null),
+                refund("TXN_MISSING_2", null),
+                refund("TXN_MISSING_3", null)
+        ));
+
+        assertEquals(0, response.getSucceeded());
+        assertEquals(3, response.getFailed());
+        response.getResults().forEach(result -> assertFalse(result.isSuccess()));
+    }
+
+    private Merchant createMerchant() {
+        String apiKey = merchantService.createMerchant(MerchantRequest.builder()
+                .name("Batch Refund Test")
+                .email("refunds-" + UUID.randomUUID() + "@payflow.test")
+                .build()).getApiKey();
+        return merchantService.validateApiKey(apiKey);
+    }
+
+    private String createCompletedPayment(Merchant merchant) {
+        String transactionId = paymentService.createPayment(merchant, PaymentRequest.builder()
+                .amount(new BigDecimal("100.00"))
+                .currency("USD")
+                .cardNumber("4111111111111111")
+                .cardHolderName("Test Holder")
+                .cvv("123")
+                .expiryDate("12/30")
+                .build()).getTransactionId();
+
+        // Skips processPayment's simulated one-second processor call
+        Payment payment = paymentRepository.findByTransactionId(transactionId).orElseThrow();
+        payment.setStatus(PaymentState.COMPLETED);
+        paymentRepository.save(payment);
+        return transactionId;
+    }
+
+    private void assertPayment(String transactionId, PaymentState status, String refundedAmount) {
+        Payment payment = paymentRepository.findByTransactionId(transactionId).orElseThrow();
+        assertEquals(status, payment.getStatus());
+        assertEquals(0, new BigDecimal(refundedAmount).compareTo(payment.getRefundedAmount()));
+    }
+
+    private static RefundRequest refund(String transactionId, String amount) {
+        return RefundRequest.builder()
+                .transactionId(transactionId)
+                .amount(amount != null ? new BigDecimal(amount) : null)
+                .reason("test")
+                .build();
+    }
+}
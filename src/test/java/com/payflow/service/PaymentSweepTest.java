@@ -0,0 +1,185 @@
+package com.payflow.service;
+
+import com.payflow.dto.MerchantRequest;
+import com.payflow.dto.PaymentRequest;
+import com.payflow.entity.Merchant;
+import com.payflow.repository.PaymentRepository;
+import com.payflow.statemachine.PaymentState;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// Calls the sweeper's PaymentService entry points directly; the scheduled sweeper itself stays off
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:payflow_sweep_test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "payflow.archive.enabled=false",
+        "payflow.sweeper.enabled=false"
+})
+class PaymentSweepTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private MerchantService merchantService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void expiresOnlyPendingPaymentsOlderThanTheCutoff() {
+        Merchant merchant = createMerchant();
+        String abandoned = createPayment(merchant, "4111111111111111");
+        String recent = createPayment(merchant, "4111111111111111");
+        setCreatedAt(abandoned, LocalDateTime.now().minusHours(2));
+
+        int expired = paymentService.expireAbandonedPayments(LocalDateTime.now().minusHours(1), 10);
+
+        assertEquals(1, expired);
+        assertEquals(PaymentState.EXPIRED, status(abandoned));
+        assertEquals("Expired before processing", paymentRepository.findByTransactionId(abandoned).orElseThrow().getFailureReason());
+        assertEquals(PaymentState.PENDING, status(recent));
+        assertEquals(0, paymentService.expireAbandonedPayments(LocalDateTime.now().minusHours(1), 10));
+    }
+
+    @Test
+    void failsPaymentsStuckInProcessing() {
+        Merchant merchant = createMerchant();
+        String stuck = createPayment(merchant, "4111111111111111");
+        String inFlight = createPayment(merchant, "4111111111111111");
+        setProcessing(stuck, LocalDateTime.now().minusMinutes(30));
+        setProcessing(inFlight, LocalDateTime.now());
+
+        int failed = paymentService.failStuckPayments(LocalDateTime.now().minusMinutes(10), 10);
+
+        assertEquals(1, failed);
+        assertEquals(PaymentState.FAILED, status(stuck));
+        assertEquals("Processing abandoned", paymentRepository.findByTransactionId(stuck).orElseThrow().getFailureReason());
+        assertEquals(PaymentState.PROCESSING, status(inFlight));
+    }
+
+    @Test
+    void claimSkipsRowsLockedByAnotherSweeper() throws Exception {
+        Merchant merchant = createMerchant();
+        String locked = createPayment(merchant, "4111111111111111");
+        String free = createPayment(merchant, "4111111111111111");
+        setCreatedAt(locked, LocalDateTime.now().minusDays(1).minusHours(2));
+        setCreatedAt(free, LocalDateTime.now().minusDays(1).minusHours(1));
+
+        // Another node holds the lock on one row while this node sweeps
+        CountDownLatch lockHeld = new CountDownLatch(1);
+        CountDownLatch sweepDone = new CountDownLatch(1);
+        TransactionTemplate otherNode = new TransactionTemplate(transactionManager);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> otherNode.executeWithoutResult(status -> {
+            paymentRepository.lockByTransactionId(locked).orElseThrow();
+            lockHeld.countDown();
+            try {
+                sweepDone.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        try {
+            lockHeld.await(10, TimeUnit.SECONDS);
+            assertEquals(1, paymentService.expireAbandonedPayments(LocalDateTime.now().minusDays(1), 10));
+        } finally {
+            sweepDone.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(PaymentState.PENDING, status(locked));
+        assertEquals(PaymentState.EXPIRED, status(free));
+
+        // Once the other node lets go, the next sweep picks the row up
+        assertEquals(1, paymentService.expireAbandonedPayments(LocalDateTime.now().minusDays(1), 10));
+        assertEquals(PaymentState.EXPIRED, status(locked));
+    }
+
+    @Test
+    void processPaymentCommitsProcessingBeforeCallingTheProcessor() throws Exception {
+        Merchant merchant = createMerchant();
+        String transactionId = createPayment(merchant, "4111111111111111");
+
+        CompletableFuture<PaymentState> processing = CompletableFuture.supplyAsync(
+                () -> paymentService.processPayment(transactionId).getStatus());
+
+        // While the (simulated, 1 s) processor call is running, PROCESSING is already visible to the sweeper
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (status(transactionId) == PaymentState.PENDING && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(PaymentState.PROCESSING, status(transactionId));
+        assertNotNull(paymentRepository.findByTransactionId(transactionId).orElseThrow().getProcessedAt());
+
+        assertEquals(PaymentState.COMPLETED, processing.get(10, TimeUnit.SECONDS));
+        assertEquals(PaymentState.COMPLETED, status(transactionId));
+    }
+
+    @Test
+    void processPaymentFailsDeclinedCards() {
+        Merchant merchant = createMerchant();
+        // The simulated processor declines cards ending in 0000
+        String declined = createPayment(merchant, "4111111111110000");
+
+        assertEquals(PaymentState.FAILED, paymentService.processPayment(declined).getStatus());
+        assertEquals("Insufficient funds", paymentRepository.findByTransactionId(declined).orElseThrow().getFailureReason());
+    }
+
+    private Merchant createMerchant() {
+        String apiKey = merchantService.createMerchant(MerchantRequest.builder()
+                .name("Sweep Test")
+                .email("sweep-" + UUID.randomUUID() + "@payflow.test")
+                .build()).getApiKey();
+        return merchantService.validateApiKey(apiKey);
+    }
+
+    private String createPayment(Merchant merchant, String cardNumber) {
+        return paymentService.createPayment(merchant, PaymentRequest.builder()
+                .amount(new BigDecimal("20.00"))
+                .currency("USD")
+                .cardNumber(cardNumber)
+                .cardHolderName("Sweep Holder")
+                .cvv("123")
+                .expiryDate("12/30")
+                .build()).getTransactionId();
+    }
+
+    // created_at is not updatable through JPA
+    private void setCreatedAt(String transactionId, LocalDateTime createdAt) {
+        jdbcTemplate.update("UPDATE payments SET created_at = ? WHERE transaction_id = ?", createdAt, transactionId);
+    }
+
+    private void setProcessing(String transactionId, LocalDateTime processedAt) {
+        jdbcTemplate.update("UPDATE payments SET status = 'PROCESSING', processed_at = ? WHERE transaction_id = ?",
+                processedAt, transactionId);
+    }
+
+    private PaymentState status(String transactionId) {
+        return PaymentState.valueOf(jdbcTemplate.queryForObject(
+                "SELECT status FROM payments WHERE transaction_id = ?", String.class, transactionId));
+    }
+}
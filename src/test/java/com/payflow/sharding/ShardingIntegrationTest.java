@@ -0,0 +1,200 @@
+package com.payflow.sharding;
+
+import com.payflow.dto.MerchantRequest;
+import com.payflow.dto.MerchantResponse;
+import com.payflow.dto.PaymentRequest;
+import com.payflow.dto.PaymentResponse;
+import com.payflow.entity.Merchant;
+import com.payflow.service.MerchantService;
+import com.payflow.service.PaymentService;
+import com.payflow.statemachine.PaymentState;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two in-memory H2 databases stand in for two shards; shard 1 gets its schema from initialize-schema
+@SpringBootTest(properties = {
+        "payflow.sharding.enabled=true",
+        "payflow.sharding.initialize-schema=true",
+        "payflow.sharding.shards[0].url=" + ShardingIntegrationTest.SHARD_0_URL,
+        "payflow.sharding.shards[0].username=sa",
+        "payflow.sharding.shards[0].password=",
+        "payflow.sharding.shards[0].driver-class-name=org.h2.Driver",
+        "payflow.sharding.shards[1].url=" + ShardingIntegrationTest.SHARD_1_URL,
+        "payflow.sharding.shards[1].username=sa",
+        "payflow.sharding.shards[1].password=",
+        "payflow.sharding.shards[1].driver-class-name=org.h2.Driver",
+        "payflow.sharding.shards[1].hikari.maximum-pool-size=3",
+        "spring.datasource.hikari.maximum-pool-size=5",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "payflow.archive.enabled=false",
+        "payflow.sweeper.enabled=false"
+})
+class ShardingIntegrationTest {
+
+    static final String SHARD_0_URL = "jdbc:h2:mem:payflow_test_shard0;DB_CLOSE_DELAY=-1";
+    static final String SHARD_1_URL = "jdbc:h2:mem:payflow_test_shard1;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MerchantService merchantService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final JdbcTemplate shard0 = new JdbcTemplate(new DriverManagerDataSource(SHARD_0_URL, "sa", ""));
+    private final JdbcTemplate shard1 = new JdbcTemplate(new DriverManagerDataSource(SHARD_1_URL, "sa", ""));
+
+    @Test
+    void shardIsEncodedInIdsAndLegacyIdsRouteToShardZero() {
+        assertEquals(2, shardRouter.shardCount());
+
+        String merchantId = shardRouter.newId("MERCH_", 1, 8);
+        assertTrue(merchantId.startsWith("MERCH_S01"));
+        assertEquals("MERCH_S01".length() + 8, merchantId.length());
+        assertEquals(1, shardRouter.shardOf(merchantId));
+        assertEquals(1, shardRouter.shardOf(shardRouter.newId("sk_", 1, 32).toLowerCase()));
+
+        // IDs issued before sharding: plain hex, or hex that happens to start with a valid shard code
+        assertEquals(0, shardRouter.shardOf("MERCH_01A2B3C4"));
+        assertEquals(0, shardRouter.shardOf("TXN_0123456789ABCDEF"));
+        assertEquals(0, shardRouter.shardOf("MERCH_SZZ12345"));
+        assertEquals(0, shardRouter.shardOf("MERCH_S0F12345"));
+        assertEquals(0, shardRouter.shardOf("no-prefix"));
+    }
+
+    @Test
+    void merchantsAndPaymentsLiveOnTheirOwnShard() {
+        MerchantResponse merchant0 = createMerchantOnShard(0);
+        MerchantResponse merchant1 = createMerchantOnShard(1);
+        assertTrue(merchant0.getMerchantId().startsWith("MERCH_S00"));
+        assertTrue(merchant1.getMerchantId().startsWith("MERCH_S01"));
+        assertTrue(merchant1.getApiKey().startsWith("sk_s01"));
+        assertEquals(1, countRows(shard0, "merchants", "merchant_id", merchant0.getMerchantId()));
+        assertEquals(0, countRows(shard1, "merchants", "merchant_id", merchant0.getMerchantId()));
+        assertEquals(1, countRows(shard1, "merchants", "merchant_id", merchant1.getMerchantId()));
+        assertEquals(0, countRows(shard0, "merchants", "merchant_id", merchant1.getMerchantId()));
+
+        String payment0 = createPayment(merchant0).getTransactionId();
+        String payment1 = createPayment(merchant1).getTransactionId();
+        assertTrue(payment0.startsWith("TXN_S00"));
+        assertTrue(payment1.startsWith("TXN_S01"));
+        assertEquals(1, countRows(shard0, "payments", "transaction_id", payment0));
+        assertEquals(0, countRows(shard1, "payments", "transaction_id", payment0));
+        assertEquals(1, countRows(shard1, "payments", "transaction_id", payment1));
+        assertEquals(0, countRows(shard0, "payments", "transaction_id", payment1));
+
+        // Both shards start IDENTITY at 1, so only the public ID tells these payments apart
+        assertEquals(payment1, paymentService.getPayment(payment1).getTransactionId());
+        assertEquals(payment0, paymentService.getPayment(payment0).getTransactionId());
+
+        List<String> pending = paymentService.getPaymentsByStatus(PaymentState.PENDING).stream()
+                .map(PaymentResponse::getTransactionId)
+                .toList();
+        assertTrue(pending.containsAll(List.of(payment0, payment1)));
+
+        assertEquals(List.of(payment1), paymentService.getMerchantPayments(merchant1.getMerchantId()).stream()
+                .map(PaymentResponse::getTransactionId)
+                .toList());
+        assertEquals(List.of(payment0), paymentService.getMerchantPayments(merchant0.getMerchantId()).stream()
+                .map(PaymentResponse::getTransactionId)
+                .toList());
+
+        // Both of processPayment's transactions must update the row on the owning shard
+        assertEquals(PaymentState.COMPLETED, paymentService.processPayment(payment1).getStatus());
+        assertEquals(PaymentState.COMPLETED.name(), shard1.queryForObject(
+                "SELECT status FROM payments WHERE transaction_id = ?", String.class, payment1));
+        assertEquals(PaymentState.COMPLETED, paymentService.getPayment(payment1).getStatus());
+        assertEquals(PaymentState.PENDING.name(), shard0.queryForObject(
+                "SELECT status FROM payments WHERE transaction_id = ?", String.class, payment0));
+    }
+
+    @Test
+    void eachShardGetsItsOwnPoolSettings() {
+        ShardRoutingDataSource routing = (ShardRoutingDataSource) ((LazyConnectionDataSourceProxy) dataSource).getTargetDataSource();
+        Map<Object, DataSource> shards = routing.getResolvedDataSources();
+        HikariDataSource shard0Pool = (HikariDataSource) shards.get(0);
+        HikariDataSource shard1Pool = (HikariDataSource) shards.get(1);
+
+        assertEquals(5, shard0Pool.getMaximumPoolSize());
+        assertEquals(3, shard1Pool.getMaximumPoolSize());
+        assertEquals("shard-0", shard0Pool.getPoolName());
+        assertEquals("shard-1", shard1Pool.getPoolName());
+    }
+
+    @Test
+    void transactionBindingIsUndoneOnceWhenTheTransactionEnds() {
+        TransactionTemplate outer = new TransactionTemplate(transactionManager);
+        TransactionTemplate inner = new TransactionTemplate(transactionManager);
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        outer.executeWithoutResult(status -> {
+            shardRouter.bindForTransaction(1);
+            shardRouter.bindForTransaction(1);
+            assertThrows(IllegalStateException.class, () -> shardRouter.bindForTransaction(0));
+
+            // A suspended transaction's binding does not leak into, or get undone by, a new one
+            inner.executeWithoutResult(innerStatus -> {
+                shardRouter.bindForTransaction(0);
+                assertEquals(0, ShardContext.current());
+            });
+            assertEquals(1, ShardContext.current());
+        });
+        assertNull(ShardContext.current());
+    }
+
+    private MerchantResponse createMerchantOnShard(int shard) {
+        for (int i = 0; ; i++) {
+            String email = "shard" + shard + "-" + i + "-" + System.nanoTime() + "@payflow.test";
+            if (shardRouter.shardForKey(email) == shard) {
+                return merchantService.createMerchant(MerchantRequest.builder()
+                        .name("Shard " + shard + " merchant")
+                        .email(email)
+                        .build());
+            }
+        }
+    }
+
+    private PaymentResponse createPayment(MerchantResponse merchantResponse) {
+        Merchant merchant = merchantService.validateApiKey(merchantResponse.getApiKey());
+        return paymentService.createPayment(merchant, PaymentRequest.builder()
+                .amount(new BigDecimal("25.00"))
+                .currency("USD")
+                .cardNumber("4111111111111111")
+                .cardHolderName("Shard Test")
+                .cvv("123")
+                .expiryDate("12/30")
+                .build());
+    }
+
+    private static int countRows(JdbcTemplate shard, String table, String column, String value) {
+        Integer count = shard.queryForObject(
+                "SELECT COUNT(*) FROM " + table + " WHERE " + column + " = ?", Integer.class, value);
+        return count != null ? count : 0;
+    }
+}
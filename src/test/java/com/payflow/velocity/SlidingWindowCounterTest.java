@@ -0,0 +1,68 @@
+package com.payflow.velocity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowCounterTest {
+
+    private static final long WINDOW = 1_000;
+
+    @Test
+    void rejectsOnceTheLimitIsReachedInsideTheWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(3, WINDOW);
+
+        assertTrue(counter.tryAcquire(0));
+        assertTrue(counter.tryAcquire(10));
+        assertTrue(counter.tryAcquire(20));
+        assertFalse(counter.tryAcquire(30));
+        assertFalse(counter.tryAcquire(999));
+    }
+
+    @Test
+    void attemptsExpireOneByOneAsTheWindowSlides() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(3, WINDOW);
+        counter.tryAcquire(0);
+        counter.tryAcquire(100);
+        counter.tryAcquire(200);
+
+        // Only the attempt at 0 has left the window
+        assertTrue(counter.tryAcquire(1_000));
+        assertFalse(counter.tryAcquire(1_050));
+        // Now the one at 100 has left too
+        assertTrue(counter.tryAcquire(1_100));
+        assertFalse(counter.tryAcquire(1_150));
+    }
+
+    @Test
+    void ringBufferWrapsAroundWithoutLosingOrder() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(3, WINDOW);
+
+        // Many times round the ring: each new attempt replaces exactly the oldest one
+        for (long now = 0; now < 30 * WINDOW; now += WINDOW / 3 + 1) {
+            assertTrue(counter.tryAcquire(now), "attempt at " + now);
+        }
+
+        counter = new SlidingWindowCounter(3, WINDOW);
+        for (int round = 0; round < 10; round++) {
+            long start = round * WINDOW;
+            assertTrue(counter.tryAcquire(start));
+            assertTrue(counter.tryAcquire(start + 1));
+            assertTrue(counter.tryAcquire(start + 2));
+            assertFalse(counter.tryAcquire(start + 3), "round " + round);
+        }
+    }
+
+    @Test
+    void idleOnlyAfterEveryAttemptHasExpired() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(2, WINDOW);
+        assertTrue(counter.isIdle(0));
+
+        counter.tryAcquire(0);
+        counter.tryAcquire(500);
+        assertFalse(counter.isIdle(999));
+        assertFalse(counter.isIdle(1_000));
+        assertTrue(counter.isIdle(1_500));
+    }
+}
@@ -0,0 +1,121 @@
+package com.payflow.velocity;
+
+import com.payflow.dto.PaymentRequest;
+import com.payflow.entity.Merchant;
+import com.payflow.exception.VelocityLimitExceededException;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VelocityCheckerTest {
+
+    private static final long MINUTE = Duration.ofMinutes(1).toNanos();
+
+    private final Merchant merchant = Merchant.builder().merchantId("MERCH_S00TEST0001").build();
+
+    @Test
+    void rejectsRepeatedCardWithinWindow() {
+        VelocityChecker checker = checker(100, 2);
+
+        checker.check(merchant, request(1), 0);
+        checker.check(merchant, request(1), 1);
+        assertThrows(VelocityLimitExceededException.class, () -> checker.check(merchant, request(1), 2));
+
+        // Another card is unaffected, and the first card is allowed again once the window has passed
+        assertDoesNotThrow(() -> checker.check(merchant, request(2), 3));
+        assertDoesNotThrow(() -> checker.check(merchant, request(1), MINUTE));
+    }
+
+    @Test
+    void failsOpenForNewCardsAtCapacity() {
+        VelocityChecker checker = checker(3, 1);
+        for (int card = 0; card < 3; card++) {
+            checker.check(merchant, request(card), 0);
+        }
+        assertEquals(3, checker.trackedKeys());
+
+        // New cards are not turned away, they are just not tracked until the sweep makes room
+        for (int card = 3; card < 10; card++) {
+            int newCard = card;
+            assertDoesNotThrow(() -> checker.check(merchant, request(newCard), 1));
+            assertDoesNotThrow(() -> checker.check(merchant, request(newCard), 2));
+        }
+        assertEquals(3, checker.trackedKeys());
+        assertEquals(14, checker.untrackedChecks());
+
+        // Cards that were already tracked keep being limited
+        assertThrows(VelocityLimitExceededException.class, () -> checker.check(merchant, request(0), 3));
+
+        checker.evictIdleCounters(MINUTE + 10);
+        assertEquals(0, checker.trackedKeys());
+        assertEquals(0, checker.untrackedChecks());
+
+        checker.check(merchant, request(9), MINUTE + 20);
+        assertThrows(VelocityLimitExceededException.class, () -> checker.check(merchant, request(9), MINUTE + 21));
+    }
+
+    @Test
+    void concurrentNewKeysNeverExceedTheCap() throws Exception {
+        int maxKeys = 50;
+        VelocityChecker checker = checker(maxKeys, 1_000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread * 1_000;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int card = 0; card < 200; card++) {
+                        // Half the threads share cards with another thread, so keys also collide
+                        checker.check(merchant, request((offset % 2_000) + card), 0);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(maxKeys, checker.trackedKeys());
+        checker.evictIdleCounters(MINUTE);
+        assertEquals(0, checker.trackedKeys());
+    }
+
+    private static VelocityChecker checker(int maxKeys, int maxAttempts) {
+        VelocityProperties.Rule rule = new VelocityProperties.Rule();
+        rule.setName("card-per-minute");
+        rule.setScope(VelocityScope.CARD);
+        rule.setWindow(Duration.ofMinutes(1));
+        rule.setMaxAttempts(maxAttempts);
+
+        VelocityProperties properties = new VelocityProperties();
+        properties.setMaxKeys(maxKeys);
+        properties.setRules(List.of(rule));
+        return new VelocityChecker(properties);
+    }
+
+    private static PaymentRequest request(int card) {
+        return PaymentRequest.builder()
+                .amount(new BigDecimal("10.00"))
+                .currency("USD")
+                .cardNumber(String.format("4000%012d", card))
+                .cardHolderName("Holder " + card)
+                .build();
+    }
+}